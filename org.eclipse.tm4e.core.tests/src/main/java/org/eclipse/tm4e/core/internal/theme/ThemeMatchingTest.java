@@ -197,4 +197,29 @@ void testMicrosoft_vscode_23460() throws Exception {
 		final var result = theme.match(path);
 		assertEquals(theme.getColorMap().get(result.foregroundId), "#FF410D");
 	}
+
+	@Test
+	@Order(6)
+	@DisplayName("Theme matching uses the deepest matching segment of the scope")
+	void testMatchesDeepestSegment() throws Exception {
+		final Theme theme = createTheme("""
+			{"settings": [
+				{ "settings": { "foreground": "#100000", "background": "#200000" } },
+				{ "scope": "constant", "settings": { "foreground": "#300000" } },
+				{ "scope": "constant.numeric", "settings": { "foreground": "#400000" } },
+				{ "scope": "constant.numeric.hex", "settings": { "foreground": "#500000" } },
+				{ "scope": "constant.character", "settings": { "foreground": "#600000" } }
+			]}""");
+
+		final var map = theme.getColorMap();
+		assertEquals(map.get(theme.match(ScopeStack.from("constant")).foregroundId), "#300000");
+		assertEquals(map.get(theme.match(ScopeStack.from("constant.language")).foregroundId), "#300000");
+		assertEquals(map.get(theme.match(ScopeStack.from("constant.numeric.dec")).foregroundId), "#400000");
+		assertEquals(map.get(theme.match(ScopeStack.from("constant.numeric.hex.js")).foregroundId), "#500000");
+		assertEquals(map.get(theme.match(ScopeStack.from("constant.numeric.")).foregroundId), "#400000");
+		assertEquals(map.get(theme.match(ScopeStack.from("constant.num")).foregroundId), "#300000");
+		assertEquals(map.get(theme.match(ScopeStack.from("constant.numerical")).foregroundId), "#300000");
+		assertEquals(map.get(theme.match(ScopeStack.from("constant.character.escape")).foregroundId), "#600000");
+		assertEquals(map.get(theme.match(ScopeStack.from("constants.numeric")).foregroundId), "#100000");
+	}
 }
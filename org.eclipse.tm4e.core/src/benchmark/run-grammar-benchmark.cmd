@@ -12,10 +12,14 @@
 
 setlocal
 
+:: optional regular expression selecting the benchmarks to run, e.g. "GrammarBenchmark.tokenizeLine2"
+set BENCHMARKS=%~1
+if "%BENCHMARKS%"=="" set BENCHMARKS=org.eclipse.tm4e.core
+
 cd /D "%~dp0..\..\.."
 
 mvn clean verify ^
   -pl target-platform,org.eclipse.tm4e.core ^
   -Djgit.dirtyWorkingTree=warning ^
   -DskipTests ^
-  -DbenchmarkClass=org.eclipse.tm4e.core.benchmark.GrammarBenchmark
+  "-DbenchmarkClass=%BENCHMARKS%"
@@ -10,10 +10,13 @@
 #     Sebatian Thomschke - Initial API and implementation
 ###############################################################################
 
+# optional regular expression selecting the benchmarks to run, e.g. "GrammarBenchmark.tokenizeLine2"
+BENCHMARKS=${1:-org.eclipse.tm4e.core}
+
 cd "$(dirname "$0")/../../.."
 
 mvn clean verify \
   -pl target-platform,org.eclipse.tm4e.core \
   -Djgit.dirtyWorkingTree=warning \
   -DskipTests \
-  -DbenchmarkClass=org.eclipse.tm4e.core.benchmark.GrammarBenchmark
+  "-DbenchmarkClass=$BENCHMARKS"
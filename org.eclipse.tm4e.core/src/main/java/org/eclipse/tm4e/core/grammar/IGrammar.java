@@ -16,8 +16,11 @@
  */
 package org.eclipse.tm4e.core.grammar;
 
+import java.nio.IntBuffer;
 import java.time.Duration;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.eclipse.jdt.annotation.Nullable;
 
@@ -51,6 +54,24 @@ public interface IGrammar {
 	 */
 	Collection<String> getFileTypes();
 
+	/**
+	 * Eagerly compiles all rules and regular expressions of this grammar and the grammars it includes, and warms the
+	 * scope attribute cache, so that tokenizing the first lines of a document runs at steady-state speed.
+	 * <p>
+	 * Without calling this method rules are compiled lazily on first use. The default implementation does nothing.
+	 */
+	default void precompile() {
+	}
+
+	/**
+	 * Same as {@link #precompile()} but compiles the rules in parallel using the given executor.
+	 *
+	 * @return a future that completes once all rules are compiled
+	 */
+	default CompletableFuture<Void> precompileAsync(final Executor executor) {
+		return CompletableFuture.runAsync(this::precompile, executor);
+	}
+
 	/**
 	 * Tokenize `lineText`.
 	 *
@@ -113,4 +134,47 @@ ITokenizeLineResult<IToken[]> tokenizeLine(String lineText, @Nullable IStateStac
 	 */
 	ITokenizeLineResult<int[]> tokenizeLine2(String lineText, @Nullable IStateStack prevState,
 		@Nullable Duration timeLimit);
+
+	/**
+	 * Same as {@link #tokenizeLine2(String, IStateStack, Duration)} but writes the binary tokens into the given
+	 * buffer, so that tokenizing many lines with the same buffer does not allocate a token array per line.
+	 * <p>
+	 * The tokens are written starting at index 0, the returned buffer has position 0 and its limit set to the number
+	 * of written ints. If the capacity of the given buffer is too small, a larger buffer is returned instead, which
+	 * should be passed on to subsequent calls.
+	 *
+	 * @param tokens the buffer to write the tokens to, its previous content is discarded
+	 *
+	 * @return the result with the buffer holding the tokens
+	 */
+	default ITokenizeLineResult<IntBuffer> tokenizeLine2(final String lineText, @Nullable final IStateStack prevState,
+		@Nullable final Duration timeLimit, final IntBuffer tokens) {
+		final var result = tokenizeLine2(lineText, prevState, timeLimit);
+		final int[] binaryTokens = result.getTokens();
+		final IntBuffer buffer;
+		if (tokens.capacity() < binaryTokens.length) {
+			buffer = IntBuffer.wrap(binaryTokens);
+		} else {
+			buffer = tokens;
+			buffer.clear();
+			buffer.put(binaryTokens);
+			buffer.flip();
+		}
+		return new ITokenizeLineResult<>() {
+			@Override
+			public IntBuffer getTokens() {
+				return buffer;
+			}
+
+			@Override
+			public IStateStack getRuleStack() {
+				return result.getRuleStack();
+			}
+
+			@Override
+			public boolean isStoppedEarly() {
+				return result.isStoppedEarly();
+			}
+		};
+	}
 }
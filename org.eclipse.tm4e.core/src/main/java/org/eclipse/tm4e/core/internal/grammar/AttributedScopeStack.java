@@ -58,6 +58,9 @@ public String scopeName() {
 	private final ScopeStack scopePath;
 	final int tokenAttributes;
 
+	/** hash of the scope names and token attributes of the whole stack, computed incrementally when pushed */
+	private final int hashCode;
+
 	public AttributedScopeStack(
 		@Nullable final AttributedScopeStack parent,
 		final ScopeStack scopePath,
@@ -65,10 +68,24 @@ public AttributedScopeStack(
 		this.parent = parent;
 		this.scopePath = scopePath;
 		this.tokenAttributes = tokenAttributes;
+
+		int hashCode = parent == null ? 1 : parent.hashCode;
+		hashCode = 31 * hashCode + scopePath.scopeName.hashCode();
+		hashCode = 31 * hashCode + tokenAttributes;
+		this.hashCode = hashCode;
+	}
+
+	@Override
+	public boolean equals(@Nullable final Object other) {
+		if (other instanceof final AttributedScopeStack otherStack) {
+			return _equals(this, otherStack);
+		}
+		return false;
 	}
 
-	public boolean equals(final AttributedScopeStack other) {
-		return _equals(this, other);
+	@Override
+	public int hashCode() {
+		return hashCode;
 	}
 
 	private static boolean _equals(
@@ -89,7 +106,9 @@ private static boolean _equals(
 				return false;
 			}
 
-			if (!Objects.equals(a.scopeName(), b.scopeName()) || a.tokenAttributes != b.tokenAttributes) {
+			if (a.hashCode != b.hashCode // stacks with different hash codes cannot be equal
+				|| !Objects.equals(a.scopeName(), b.scopeName())
+				|| a.tokenAttributes != b.tokenAttributes) {
 				return false;
 			}
 
@@ -148,7 +167,7 @@ private AttributedScopeStack _pushAttributed(
 		final var rawMetadata = grammar.getMetadataForScope(scopeName);
 
 		final var newPath = target.scopePath.push(scopeName);
-		final var scopeThemeMatchResult = grammar.themeProvider.themeMatch(newPath);
+		final var scopeThemeMatchResult = grammar.themeMatch(target, newPath);
 		final var metadata = mergeAttributes(
 			target.tokenAttributes,
 			rawMetadata,
@@ -27,6 +27,10 @@
 import org.eclipse.tm4e.core.internal.grammar.tokenattrs.OptionalStandardTokenType;
 import org.eclipse.tm4e.core.internal.utils.RegexSource;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 /**
  * @see <a href=
  *      "https://github.com/microsoft/vscode-textmate/blob/e8d1fc5d04b2fc91384c7a895f6c9ff296a38ac8/src/basicScopesAttributeProvider.ts#L18">
@@ -37,7 +41,15 @@ final class BasicScopeAttributesProvider {
 	private final BasicScopeAttributes _defaultAttributes;
 	private final ScopeMatcher<Integer /* languageId */> _embeddedLanguagesMatcher;
 
-	private final Map<String /*scopeName*/, BasicScopeAttributes> cache = new HashMap<>();
+	/**
+	 * max number of cached scope attributes. Scope names may contain captured text, e.g. the delimiter of a heredoc,
+	 * so the number of distinct scope names of a grammar is not limited.
+	 */
+	private static final int MAX_CACHED_SCOPES = 10_000;
+
+	private final LoadingCache<String /*scopeName*/, BasicScopeAttributes> cache = CacheBuilder.newBuilder()
+		.maximumSize(MAX_CACHED_SCOPES)
+		.build(CacheLoader.from(this::_computeBasicScopeAttributes));
 
 	BasicScopeAttributesProvider(final int initialLanguage, @Nullable final Map<String, Integer> embeddedLanguages) {
 		this._defaultAttributes = new BasicScopeAttributes(initialLanguage, OptionalStandardTokenType.NotSet);
@@ -53,11 +65,13 @@ BasicScopeAttributes getBasicScopeAttributes(@Nullable final String scopeName) {
 			return BasicScopeAttributesProvider._NULL_SCOPE_METADATA;
 		}
 
-		return cache.computeIfAbsent(scopeName, scopeName2 -> {
-			final var languageId = this._scopeToLanguage(scopeName);
-			final var standardTokenType = _toStandardTokenType(scopeName);
-			return new BasicScopeAttributes(languageId, standardTokenType);
-		});
+		return cache.getUnchecked(scopeName);
+	}
+
+	private BasicScopeAttributes _computeBasicScopeAttributes(final String scopeName) {
+		final var languageId = this._scopeToLanguage(scopeName);
+		final var standardTokenType = _toStandardTokenType(scopeName);
+		return new BasicScopeAttributes(languageId, standardTokenType);
 	}
 
 	private static final BasicScopeAttributes _NULL_SCOPE_METADATA = new BasicScopeAttributes(0, 0);
@@ -19,14 +19,19 @@
 
 import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
+import java.nio.IntBuffer;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 import org.eclipse.jdt.annotation.Nullable;
@@ -36,6 +41,8 @@
 import org.eclipse.tm4e.core.grammar.ITokenizeLineResult;
 import org.eclipse.tm4e.core.internal.grammar.tokenattrs.EncodedTokenAttributes;
 import org.eclipse.tm4e.core.internal.matcher.Matcher;
+import org.eclipse.tm4e.core.internal.oniguruma.IOnigLib;
+import org.eclipse.tm4e.core.internal.oniguruma.OnigScanner;
 import org.eclipse.tm4e.core.internal.oniguruma.OnigString;
 import org.eclipse.tm4e.core.internal.registry.IGrammarRepository;
 import org.eclipse.tm4e.core.internal.registry.IThemeProvider;
@@ -43,14 +50,21 @@
 import org.eclipse.tm4e.core.internal.rule.Rule;
 import org.eclipse.tm4e.core.internal.rule.RuleFactory;
 import org.eclipse.tm4e.core.internal.rule.RuleId;
+import org.eclipse.tm4e.core.internal.theme.StyleAttributes;
 import org.eclipse.tm4e.core.internal.types.IRawGrammar;
 import org.eclipse.tm4e.core.internal.types.IRawRepository;
 import org.eclipse.tm4e.core.internal.types.IRawRule;
-import org.eclipse.tm4e.core.internal.utils.ObjectCloner;
 import org.eclipse.tm4e.core.internal.utils.StringUtils;
 
+import com.google.common.base.Splitter;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.MapMaker;
+
 /**
  * TextMate grammar implementation.
+ * <p>
+ * Instances are thread-safe and can be shared, e.g. by multiple documents of the same language. Rules are compiled
+ * lazily under the grammar's lock, tokenizing itself does not lock.
  *
  * @see <a href=
  *      "https://github.com/microsoft/vscode-textmate/blob/e8d1fc5d04b2fc91384c7a895f6c9ff296a38ac8/src/grammar/grammar.ts#L99">
@@ -60,25 +74,45 @@ public final class Grammar implements IGrammar, IRuleFactoryHelper {
 
 	private static final Logger LOGGER = System.getLogger(Grammar.class.getName());
 
+	private static final Splitter BY_SPACE_SPLITTER = Splitter.on(' ');
+
+	/** value of {@link #themeMatchCache} entries for scope names without matching theme rule */
+	private static final Object NO_THEME_MATCH = new Object();
+
 	private final String rootScopeName;
 
 	@Nullable
-	private RuleId _rootId;
+	private volatile RuleId _rootId;
 	private int _lastRuleId = 0;
-	private final Map<RuleId, @Nullable Rule> _ruleId2desc = new HashMap<>();
+	private final Map<RuleId, Rule> _ruleId2desc = new ConcurrentHashMap<>();
+	private final Map<IRawRule, RuleId> _rawRuleIds = new IdentityHashMap<>();
 	private final Map<String /*scopeName*/, IRawGrammar> includedGrammars = new HashMap<>();
 	private final IGrammarRepository _grammarRepository;
 	private final IRawGrammar _grammar;
 	final IThemeProvider themeProvider;
+	private final IOnigLib _onigLib;
 
 	@Nullable
-	private List<Injection> _injections;
+	private volatile List<Injection> _injections;
 	private final BasicScopeAttributesProvider _basicScopeAttributesProvider;
 	private final List<TokenTypeMatcher> _tokenTypeMatchers = new ArrayList<>();
 
 	@Nullable
 	private final BalancedBracketSelectors balancedBracketSelectors;
 
+	@Nullable
+	private final TokenizationCache tokenizationCache;
+
+	/**
+	 * theme match results per (parent scope stack, scope name) transition. The scope stacks are compared by identity
+	 * and weakly referenced, so entries are dropped together with the states of the tokenized lines.
+	 */
+	private final Map<AttributedScopeStack, Map<String /*scopeName*/, Object /*StyleAttributes*/>> themeMatchCache = //
+		new MapMaker().weakKeys().makeMap();
+
+	/**
+	 * @param tokenizationCacheSize the maximum number of line tokenization results to cache, 0 to disable caching
+	 */
 	public Grammar(
 		final String rootScopeName,
 		final IRawGrammar grammar,
@@ -87,7 +121,9 @@ public Grammar(
 		@Nullable final Map<String, Integer> tokenTypes,
 		@Nullable final BalancedBracketSelectors balancedBracketSelectors,
 		final IGrammarRepository grammarRepository,
-		final IThemeProvider themeProvider) {
+		final IThemeProvider themeProvider,
+		final IOnigLib onigLib,
+		final int tokenizationCacheSize) {
 
 		this.rootScopeName = rootScopeName;
 		this._basicScopeAttributesProvider = new BasicScopeAttributesProvider(
@@ -97,6 +133,8 @@ public Grammar(
 		this._grammar = initGrammar(grammar, null);
 		this.balancedBracketSelectors = balancedBracketSelectors;
 		this.themeProvider = themeProvider;
+		this._onigLib = onigLib;
+		this.tokenizationCache = tokenizationCacheSize > 0 ? new TokenizationCache(tokenizationCacheSize) : null;
 
 		if (tokenTypes != null) {
 			for (final var entry : tokenTypes.entrySet()) {
@@ -113,6 +151,23 @@ BasicScopeAttributes getMetadataForScope(final String scope) {
 		return this._basicScopeAttributesProvider.getBasicScopeAttributes(scope);
 	}
 
+	/**
+	 * Matches the given scope path, which is the given parent's scope path with one scope name pushed, in the theme.
+	 * The result is memoized per parent and scope name, so pushing the same scope onto the same stack again does not
+	 * walk the theme rules.
+	 */
+	@Nullable
+	StyleAttributes themeMatch(final AttributedScopeStack parent, final ScopeStack scopePath) {
+		final var matches = themeMatchCache.computeIfAbsent(parent, p -> new ConcurrentHashMap<>(4));
+		var match = matches.get(scopePath.scopeName);
+		if (match == null) {
+			final var styleAttributes = themeProvider.themeMatch(scopePath);
+			match = styleAttributes == null ? NO_THEME_MATCH : styleAttributes;
+			matches.put(scopePath.scopeName, match);
+		}
+		return match == NO_THEME_MATCH ? null : (StyleAttributes) match;
+	}
+
 	private void collectInjections(final List<Injection> result, final String selector, final IRawRule rule,
 		final IRuleFactoryHelper ruleFactoryHelper, final IRawGrammar grammar) {
 		final var matchers = Matcher.createMatchers(selector);
@@ -190,13 +245,18 @@ private List<Injection> _collectInjections() {
 	List<Injection> getInjections() {
 		var injections = this._injections;
 		if (injections == null) {
-			injections = this._injections = this._collectInjections();
-
-			if (LOGGER.isLoggable(Level.TRACE) && !injections.isEmpty()) {
-				LOGGER.log(Level.TRACE,
-					"Grammar " + rootScopeName + " contains the following injections:");
-				for (final var injection : injections) {
-					LOGGER.log(Level.TRACE, "  - " + injection.debugSelector);
+			synchronized (this) {
+				injections = this._injections;
+				if (injections == null) {
+					injections = this._injections = this._collectInjections();
+
+					if (LOGGER.isLoggable(Level.TRACE) && !injections.isEmpty()) {
+						LOGGER.log(Level.TRACE,
+							"Grammar " + rootScopeName + " contains the following injections:");
+						for (final var injection : injections) {
+							LOGGER.log(Level.TRACE, "  - " + injection.debugSelector);
+						}
+					}
 				}
 			}
 		}
@@ -204,9 +264,9 @@ List<Injection> getInjections() {
 	}
 
 	@Override
-	public <T extends Rule> T registerRule(final Function<RuleId, T> factory) {
+	public synchronized <T extends Rule> T registerRule(final Function<RuleId, T> factory) {
 		final var id = RuleId.of(++this._lastRuleId);
-		final @Nullable T result = factory.apply(id);
+		final T result = factory.apply(id);
 		this._ruleId2desc.put(id, result);
 		return result;
 	}
@@ -221,9 +281,25 @@ public Rule getRule(final RuleId ruleId) {
 		return rule;
 	}
 
+	@Override
+	public OnigScanner createOnigScanner(final List<String> sources) {
+		return this._onigLib.createOnigScanner(sources);
+	}
+
 	@Override
 	@Nullable
-	public IRawGrammar getExternalGrammar(final String scopeName, @Nullable final IRawRepository repository) {
+	public synchronized RuleId getRuleId(final IRawRule rawRule) {
+		return this._rawRuleIds.get(rawRule);
+	}
+
+	@Override
+	public synchronized void setRuleId(final IRawRule rawRule, final RuleId ruleId) {
+		this._rawRuleIds.put(rawRule, ruleId);
+	}
+
+	@Override
+	@Nullable
+	public synchronized IRawGrammar getExternalGrammar(final String scopeName, @Nullable final IRawRepository repository) {
 		if (this.includedGrammars.containsKey(scopeName)) {
 			return this.includedGrammars.get(scopeName);
 		}
@@ -238,15 +314,66 @@ public IRawGrammar getExternalGrammar(final String scopeName, @Nullable final IR
 		return null;
 	}
 
-	private IRawGrammar initGrammar(IRawGrammar grammar, @Nullable final IRawRule base) {
-		grammar = ObjectCloner.deepClone(grammar);
-
-		final var repo = grammar.getRepository();
-		repo.setSelf(new RawRule()
+	/**
+	 * The raw grammar is not modified, as it may be shared with other grammars. Instead a shallow copy with its own
+	 * <code>$self</code> and <code>$base</code> rules is returned.
+	 */
+	private IRawGrammar initGrammar(final IRawGrammar grammar, @Nullable final IRawRule base) {
+		final var self = new RawRule()
 			.setName(grammar.getScopeName())
-			.setPatterns(grammar.getPatterns()));
-		repo.setBase(base != null ? base : repo.getSelf());
-		return grammar;
+			.setPatterns(grammar.getPatterns());
+		return grammar.withRepositoryOverlay(self, base != null ? base : self);
+	}
+
+	@Override
+	public void precompile() {
+		for (final var rule : compileRules()) {
+			precompile(rule);
+		}
+	}
+
+	@Override
+	public CompletableFuture<Void> precompileAsync(final Executor executor) {
+		return CompletableFuture.supplyAsync(this::compileRules, executor)
+			.thenCompose(rules -> CompletableFuture.allOf(rules.stream()
+				.map(rule -> CompletableFuture.runAsync(() -> precompile(rule), executor))
+				.toArray(CompletableFuture[]::new)));
+	}
+
+	/**
+	 * Creates the rules reachable from the root rule and the injections.
+	 *
+	 * @return all rules of this grammar
+	 */
+	private List<Rule> compileRules() {
+		getRootId();
+		getInjections();
+		return List.copyOf(this._ruleId2desc.values());
+	}
+
+	private void precompile(final Rule rule) {
+		rule.precompile(this);
+		rule.collectScopeNames(scopeNames -> {
+			for (final var scopeName : BY_SPACE_SPLITTER.split(scopeNames)) {
+				getMetadataForScope(scopeName);
+			}
+		});
+	}
+
+	private RuleId getRootId() {
+		var rootId = this._rootId;
+		if (rootId == null) {
+			synchronized (this) {
+				rootId = this._rootId;
+				if (rootId == null) {
+					rootId = this._rootId = RuleFactory.getCompiledRuleId(
+						this._grammar.getRepository().getSelf(),
+						this,
+						this._grammar.getRepository());
+				}
+			}
+		}
+		return rootId;
 	}
 
 	@Override
@@ -258,7 +385,7 @@ public ITokenizeLineResult<IToken[]> tokenizeLine(final String lineText) {
 	public ITokenizeLineResult<IToken[]> tokenizeLine(final String lineText,
 		@Nullable final IStateStack prevState,
 		@Nullable final Duration timeLimit) {
-		return _tokenize(lineText, (StateStack) prevState, false, timeLimit);
+		return _tokenize(lineText, (StateStack) prevState, false, timeLimit, null);
 	}
 
 	@Override
@@ -269,22 +396,42 @@ public ITokenizeLineResult<int[]> tokenizeLine2(final String lineText) {
 	@Override
 	public ITokenizeLineResult<int[]> tokenizeLine2(final String lineText, @Nullable final IStateStack prevState,
 		@Nullable final Duration timeLimit) {
-		return _tokenize(lineText, (StateStack) prevState, true, timeLimit);
+		return _tokenize(lineText, (StateStack) prevState, true, timeLimit, null);
+	}
+
+	@Override
+	public ITokenizeLineResult<IntBuffer> tokenizeLine2(final String lineText, @Nullable final IStateStack prevState,
+		@Nullable final Duration timeLimit, final IntBuffer tokens) {
+		return _tokenize(lineText, (StateStack) prevState, true, timeLimit, tokens);
 	}
 
 	@SuppressWarnings("unchecked")
 	private <T> T _tokenize(
+		final String lineText,
+		@Nullable final StateStack prevState,
+		final boolean emitBinaryTokens,
+		@Nullable final Duration timeLimit,
+		@Nullable final IntBuffer binaryTokensBuffer) {
+		final var tokenizationCache = this.tokenizationCache;
+		if (tokenizationCache == null)
+			return (T) _doTokenize(lineText, prevState, emitBinaryTokens, timeLimit, binaryTokensBuffer);
+
+		final var cachedResult = tokenizationCache.get(lineText, prevState, emitBinaryTokens, binaryTokensBuffer);
+		if (cachedResult != null)
+			return (T) cachedResult;
+
+		final var result = _doTokenize(lineText, prevState, emitBinaryTokens, timeLimit, binaryTokensBuffer);
+		tokenizationCache.put(lineText, prevState, emitBinaryTokens, result);
+		return (T) result;
+	}
+
+	private TokenizeLineResult<?> _doTokenize(
 		String lineText,
 		@Nullable StateStack prevState,
 		final boolean emitBinaryTokens,
-		@Nullable final Duration timeLimit) {
-		var rootId = this._rootId;
-		if (rootId == null) {
-			rootId = this._rootId = RuleFactory.getCompiledRuleId(
-				this._grammar.getRepository().getSelf(),
-				this,
-				this._grammar.getRepository());
-		}
+		@Nullable final Duration timeLimit,
+		@Nullable final IntBuffer binaryTokensBuffer) {
+		final var rootId = getRootId();
 
 		boolean isFirstLine;
 		if (prevState == null || prevState.equals(StateStack.NULL)) {
@@ -327,7 +474,7 @@ private <T> T _tokenize(
 				scopeList);
 		} else {
 			isFirstLine = false;
-			prevState.reset();
+			prevState = prevState.reset();
 		}
 
 		if (lineText.isEmpty() || lineText.charAt(lineText.length() - 1) != '\n') {
@@ -340,7 +487,10 @@ private <T> T _tokenize(
 			emitBinaryTokens,
 			lineText,
 			_tokenTypeMatchers,
-			balancedBracketSelectors);
+			balancedBracketSelectors,
+			binaryTokensBuffer != null && binaryTokensBuffer.hasArray() && binaryTokensBuffer.arrayOffset() == 0
+				? binaryTokensBuffer.array()
+				: null);
 		final var tokenizeResult = LineTokenizer.tokenizeString(
 			this,
 			onigLineText,
@@ -351,11 +501,16 @@ private <T> T _tokenize(
 			true,
 			timeLimit == null ? Duration.ZERO : timeLimit);
 
+		if (binaryTokensBuffer != null) {
+			return new TokenizeLineResult<>(
+				lineTokens.getBinaryResult(tokenizeResult.stack, lineLength, binaryTokensBuffer),
+				tokenizeResult.stack, tokenizeResult.stoppedEarly);
+		}
 		if (emitBinaryTokens) {
-			return (T) new TokenizeLineResult<>(lineTokens.getBinaryResult(tokenizeResult.stack, lineLength),
+			return new TokenizeLineResult<>(lineTokens.getBinaryResult(tokenizeResult.stack, lineLength),
 				tokenizeResult.stack, tokenizeResult.stoppedEarly);
 		}
-		return (T) new TokenizeLineResult<>(lineTokens.getResult(tokenizeResult.stack, lineLength),
+		return new TokenizeLineResult<>(lineTokens.getResult(tokenizeResult.stack, lineLength),
 			tokenizeResult.stack, tokenizeResult.stoppedEarly);
 	}
 
@@ -375,6 +530,32 @@ public Collection<String> getFileTypes() {
 		return _grammar.getFileTypes();
 	}
 
+	/**
+	 * @return the hit/miss statistics of the tokenization cache or null if caching is disabled
+	 */
+	@Nullable
+	public CacheStats getTokenizationCacheStats() {
+		final var tokenizationCache = this.tokenizationCache;
+		return tokenizationCache == null ? null : tokenizationCache.stats();
+	}
+
+	/**
+	 * Discards all cached tokenization results, e.g. because the theme changed.
+	 */
+	public void clearTokenizationCache() {
+		final var tokenizationCache = this.tokenizationCache;
+		if (tokenizationCache != null) {
+			tokenizationCache.clear();
+		}
+	}
+
+	/**
+	 * Discards all memoized theme match results, must be called when the theme changed.
+	 */
+	public void clearThemeMatchCache() {
+		themeMatchCache.clear();
+	}
+
 	@Override
 	public String toString() {
 		return StringUtils.toString(this, sb -> sb
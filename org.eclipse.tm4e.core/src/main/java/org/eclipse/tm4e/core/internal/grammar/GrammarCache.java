@@ -0,0 +1,305 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.internal.grammar;
+
+import static java.lang.System.Logger.Level.*;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * On-disk cache of parsed grammars in a compact binary format, so that warm starts do not need to parse the
+ * JSON/XML/YAML grammar files again.
+ * <p>
+ * Cache files are named after a hash of the grammar's source path and contain a hash of the grammar's text content.
+ * A cache file is only used if the content hash and the {@link #FORMAT_VERSION} match.
+ * <p>
+ * Format: magic number, format version, content hash, CRC32 checksum of the following bytes, followed by the encoded
+ * value tree of the {@link RawGrammar}. Strings are written once and afterwards referenced by their index, as scope
+ * names repeat a lot.
+ */
+final class GrammarCache {
+
+	private static final Logger LOGGER = System.getLogger(GrammarCache.class.getName());
+
+	private static final int MAGIC = 0x544D3447; // "TM4G"
+
+	/**
+	 * must be increased whenever the binary format or the structure of the raw grammar classes changes
+	 */
+	static final int FORMAT_VERSION = 2;
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte STRING_REF = 2;
+	private static final byte INTEGER = 3;
+	private static final byte FLOAT = 4;
+	private static final byte TRUE = 5;
+	private static final byte FALSE = 6;
+	private static final byte DATE = 7;
+	private static final byte LIST = 8;
+	private static final byte RAW_GRAMMAR = 9;
+	private static final byte RAW_RULE = 10;
+	private static final byte RAW_REPOSITORY = 11;
+	private static final byte RAW_CAPTURES = 12;
+
+	private final Path cacheDir;
+
+	GrammarCache(final Path cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	static byte[] hash(final String content) {
+		return Hashing.sha256().hashString(content, StandardCharsets.UTF_8).asBytes();
+	}
+
+	Path getCacheFile(final String sourcePath) {
+		return cacheDir.resolve(Hashing.sha256().hashString(sourcePath, StandardCharsets.UTF_8) + ".bin");
+	}
+
+	/**
+	 * @return the cached grammar or null if no valid cache entry exists for the given source path and content hash
+	 */
+	@Nullable
+	RawGrammar load(final String sourcePath, final byte[] contentHash) {
+		final var cacheFile = getCacheFile(sourcePath);
+		try {
+			// the file is read instead of mapped, since a mapped file cannot be replaced on Windows, i.e. an outdated
+			// entry could not be refreshed by store()
+			final var buffer = ByteBuffer.wrap(Files.readAllBytes(cacheFile));
+			if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+				LOGGER.log(DEBUG, "Ignoring grammar cache file [{0}] with unsupported format", cacheFile);
+				return null;
+			}
+			final var hash = new byte[contentHash.length];
+			buffer.get(hash);
+			if (!Arrays.equals(hash, contentHash)) {
+				LOGGER.log(DEBUG, "Ignoring outdated grammar cache file [{0}] of [{1}]", cacheFile, sourcePath);
+				return null;
+			}
+			final int checksum = buffer.getInt();
+			final var crc = new CRC32();
+			crc.update(buffer.duplicate());
+			if ((int) crc.getValue() != checksum) {
+				LOGGER.log(DEBUG, "Ignoring corrupted grammar cache file [{0}]", cacheFile);
+				return null;
+			}
+			if (new Decoder(buffer).readValue() instanceof final RawGrammar grammar) {
+				return grammar;
+			}
+			LOGGER.log(DEBUG, "Ignoring invalid grammar cache file [{0}]", cacheFile);
+		} catch (final NoSuchFileException ex) {
+			// not cached yet
+		} catch (final IOException | RuntimeException ex) {
+			LOGGER.log(DEBUG, "Reading grammar cache file [{0}] failed: {1}", cacheFile, ex);
+		}
+		return null;
+	}
+
+	/**
+	 * Writes the given grammar to the cache.
+	 */
+	void store(final String sourcePath, final byte[] contentHash, final RawGrammar grammar) throws IOException {
+		final var cacheFile = getCacheFile(sourcePath);
+		Files.createDirectories(cacheDir);
+		final var tmpFile = Files.createTempFile(cacheDir, cacheFile.getFileName().toString(), ".tmp");
+		try {
+			final var encoded = new ByteArrayOutputStream();
+			try (var out = new DataOutputStream(encoded)) {
+				new Encoder(out).writeValue(grammar);
+			}
+			final var crc = new CRC32();
+			crc.update(encoded.toByteArray());
+			try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.write(contentHash);
+				out.writeInt((int) crc.getValue());
+				encoded.writeTo(out);
+			}
+			Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmpFile);
+		}
+	}
+
+	private static final class Encoder {
+
+		private final DataOutputStream out;
+		private final Map<String, Integer> stringIndexes = new HashMap<>();
+
+		Encoder(final DataOutputStream out) {
+			this.out = out;
+		}
+
+		void writeValue(@Nullable final Object value) throws IOException {
+			if (value == null) {
+				out.writeByte(NULL);
+			} else if (value instanceof final String string) {
+				writeString(string);
+			} else if (value instanceof final Integer integer) {
+				out.writeByte(INTEGER);
+				out.writeInt(integer);
+			} else if (value instanceof final Float number) {
+				out.writeByte(FLOAT);
+				out.writeFloat(number);
+			} else if (value instanceof final Boolean bool) {
+				out.writeByte(bool ? TRUE : FALSE);
+			} else if (value instanceof final ZonedDateTime date) {
+				out.writeByte(DATE);
+				writeString(date.toString());
+			} else if (value instanceof final List<?> list) {
+				out.writeByte(LIST);
+				writeVarInt(list.size());
+				for (final var item : list) {
+					writeValue(item);
+				}
+			} else if (value instanceof final RawGrammar map) {
+				out.writeByte(RAW_GRAMMAR);
+				writeMap(map);
+			} else if (value instanceof final RawRepository map) {
+				out.writeByte(RAW_REPOSITORY);
+				writeMap(map);
+			} else if (value instanceof final RawCaptures map) {
+				out.writeByte(RAW_CAPTURES);
+				writeMap(map);
+			} else if (value.getClass() == RawRule.class) {
+				out.writeByte(RAW_RULE);
+				writeMap((RawRule) value);
+			} else {
+				throw new IOException("Unsupported value type: " + value.getClass().getName());
+			}
+		}
+
+		private void writeMap(final Map<String, ?> map) throws IOException {
+			writeVarInt(map.size());
+			for (final var entry : map.entrySet()) {
+				writeString(entry.getKey());
+				writeValue(entry.getValue());
+			}
+		}
+
+		private void writeString(final String string) throws IOException {
+			final var index = stringIndexes.get(string);
+			if (index != null) {
+				out.writeByte(STRING_REF);
+				writeVarInt(index);
+				return;
+			}
+			stringIndexes.put(string, stringIndexes.size());
+			final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			out.writeByte(STRING);
+			writeVarInt(bytes.length);
+			out.write(bytes);
+		}
+
+		private void writeVarInt(int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				out.writeByte(value & 0x7F | 0x80);
+				value >>>= 7;
+			}
+			out.writeByte(value);
+		}
+	}
+
+	private static final class Decoder {
+
+		private final ByteBuffer in;
+		private final List<String> strings = new ArrayList<>();
+
+		Decoder(final ByteBuffer in) {
+			this.in = in;
+		}
+
+		@Nullable
+		Object readValue() throws IOException {
+			final byte tag = in.get();
+			return switch (tag) {
+			case NULL -> null;
+			case STRING, STRING_REF -> readString(tag);
+			case INTEGER -> in.getInt();
+			case FLOAT -> in.getFloat();
+			case TRUE -> Boolean.TRUE;
+			case FALSE -> Boolean.FALSE;
+			case DATE -> ZonedDateTime.parse(readString(in.get()));
+			case LIST -> {
+				final int size = readVarInt();
+				final var list = new ArrayList<@Nullable Object>(size);
+				for (int i = 0; i < size; i++) {
+					list.add(readValue());
+				}
+				yield list;
+			}
+			case RAW_GRAMMAR -> readMap(new RawGrammar());
+			case RAW_RULE -> readMap(new RawRule());
+			case RAW_REPOSITORY -> readMap(new RawRepository());
+			case RAW_CAPTURES -> readMap(new RawCaptures());
+			default -> throw new IOException("Unsupported value tag: " + tag);
+			};
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private Map<String, ?> readMap(final Map map) throws IOException {
+			final int size = readVarInt();
+			for (int i = 0; i < size; i++) {
+				final var key = readString(in.get());
+				map.put(key, readValue());
+			}
+			return map;
+		}
+
+		private String readString(final byte tag) throws IOException {
+			final int value = readVarInt();
+			switch (tag) {
+			case STRING_REF:
+				return strings.get(value);
+			case STRING:
+				final var bytes = new byte[value];
+				in.get(bytes);
+				final var string = new String(bytes, StandardCharsets.UTF_8);
+				strings.add(string);
+				return string;
+			default:
+				throw new IOException("Expected string but found value tag: " + tag);
+			}
+		}
+
+		private int readVarInt() {
+			int value = 0;
+			for (int shift = 0;; shift += 7) {
+				final byte b = in.get();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+		}
+	}
+}
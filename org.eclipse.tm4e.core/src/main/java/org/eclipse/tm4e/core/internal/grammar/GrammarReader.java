@@ -16,6 +16,15 @@
  */
 package org.eclipse.tm4e.core.internal.grammar;
 
+import static java.lang.System.Logger.Level.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.System.Logger;
+import java.nio.file.Path;
+
+import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tm4e.core.internal.parser.PListParser;
 import org.eclipse.tm4e.core.internal.parser.PListParserJSON;
 import org.eclipse.tm4e.core.internal.parser.PListParserXML;
@@ -25,11 +34,15 @@
 import org.eclipse.tm4e.core.internal.types.IRawGrammar;
 import org.eclipse.tm4e.core.registry.IGrammarSource;
 
+import com.google.common.io.CharStreams;
+
 /**
  * TextMate Grammar reader utilities.
  */
 public final class GrammarReader {
 
+	private static final Logger LOGGER = System.getLogger(GrammarReader.class.getName());
+
 	public static final PropertySettable.Factory<PListPath> OBJECT_FACTORY = path -> {
 		if (path.size() == 0) {
 			return new RawGrammar();
@@ -47,15 +60,49 @@ public final class GrammarReader {
 
 	public static IRawGrammar readGrammar(final IGrammarSource source) throws Exception {
 		try (var reader = source.getReader()) {
-			switch (source.getContentType()) {
-			case JSON:
-				return JSON_PARSER.parse(reader);
-			case YAML:
-				return YAML_PARSER.parse(reader);
-			case XML:
-			default:
-				return XML_PARSER.parse(reader);
-			}
+			return parse(reader, source.getContentType());
+		}
+	}
+
+	/**
+	 * @param cacheDir directory to store parsed grammars in, if null the grammar is always parsed
+	 */
+	public static IRawGrammar readGrammar(final IGrammarSource source, @Nullable final Path cacheDir)
+		throws Exception {
+		if (cacheDir == null) {
+			return readGrammar(source);
+		}
+
+		final String content;
+		try (var reader = source.getReader()) {
+			content = CharStreams.toString(reader);
+		}
+		final var cache = new GrammarCache(cacheDir);
+		final var contentHash = GrammarCache.hash(content);
+		final var cached = cache.load(source.getFilePath(), contentHash);
+		if (cached != null) {
+			return cached;
+		}
+
+		final var grammar = parse(new StringReader(content), source.getContentType());
+		try {
+			cache.store(source.getFilePath(), contentHash, grammar);
+		} catch (final IOException ex) {
+			LOGGER.log(WARNING, "Caching grammar [{0}] failed: {1}", source.getFilePath(), ex);
+		}
+		return grammar;
+	}
+
+	private static RawGrammar parse(final Reader reader, final IGrammarSource.ContentType contentType)
+		throws Exception {
+		switch (contentType) {
+		case JSON:
+			return JSON_PARSER.parse(reader);
+		case YAML:
+			return YAML_PARSER.parse(reader);
+		case XML:
+		default:
+			return XML_PARSER.parse(reader);
 		}
 	}
 
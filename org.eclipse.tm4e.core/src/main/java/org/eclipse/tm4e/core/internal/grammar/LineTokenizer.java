@@ -106,6 +106,9 @@ private LineTokenizer(final Grammar grammar, final OnigString lineText, final bo
 		this.lineTokens = lineTokens;
 	}
 
+	/**
+	 * @param timeLimit time limit in nanoseconds, 0 for no limit
+	 */
 	private TokenizeStringResult scan(final boolean checkWhileConditions, final long timeLimit) {
 		stop = false;
 
@@ -118,17 +121,20 @@ private TokenizeStringResult scan(final boolean checkWhileConditions, final long
 			anchorPosition = whileCheckResult.anchorPosition;
 		}
 
-		final var startTime = System.currentTimeMillis();
+		if (timeLimit <= 0) {
+			while (!stop) {
+				scanNext(); // potentially modifies linePos && anchorPosition
+			}
+			return new TokenizeStringResult(stack, false);
+		}
+
+		final long startTime = System.nanoTime();
 		while (!stop) {
-			if (timeLimit > 0) {
-				final var elapsedTime = System.currentTimeMillis() - startTime;
-				if (elapsedTime > timeLimit) {
-					return new TokenizeStringResult(stack, true);
-				}
+			if (System.nanoTime() - startTime > timeLimit) {
+				return new TokenizeStringResult(stack, true);
 			}
 			scanNext(); // potentially modifies linePos && anchorPosition
 		}
-
 		return new TokenizeStringResult(stack, false);
 	}
 
@@ -543,7 +549,7 @@ final class WhileStack {
 		for (int i = whileRules.size() - 1; i >= 0; i--) {
 			final var whileRule = whileRules.get(i);
 
-			final var ruleScanner = whileRule.rule.compileWhileAG(whileRule.stack.endRule, isFirstLine,
+			final var ruleScanner = whileRule.rule.compileWhileAG(grammar, whileRule.stack.endRule, isFirstLine,
 				anchorPosition == linePos);
 			final var r = ruleScanner.scanner.findNextMatchSync(lineText, linePos);
 			if (LOGGER.isLoggable(TRACE)) {
@@ -583,7 +589,7 @@ static TokenizeStringResult tokenizeString(final Grammar grammar, final OnigStri
 		final int linePos, final StateStack stack, final LineTokens lineTokens,
 		final boolean checkWhileConditions, final Duration timeLimit) {
 		return new LineTokenizer(grammar, lineText, isFirstLine, linePos, stack, lineTokens)
-			.scan(checkWhileConditions, timeLimit.toMillis());
+			.scan(checkWhileConditions, timeLimit.toNanos());
 	}
 
 	static String debugCompiledRuleToString(final CompiledRule ruleScanner) {
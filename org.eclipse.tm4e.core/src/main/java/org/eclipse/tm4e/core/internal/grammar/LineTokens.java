@@ -17,12 +17,11 @@
 package org.eclipse.tm4e.core.internal.grammar;
 
 import static java.lang.System.Logger.Level.*;
-import static org.eclipse.tm4e.core.internal.utils.MoreCollections.*;
 
 import java.lang.System.Logger;
+import java.nio.IntBuffer;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.List;
 
@@ -42,6 +41,7 @@ final class LineTokens {
 	private static final Logger LOGGER = System.getLogger(LineTokens.class.getName());
 
 	private static final Deque<IToken> EMPTY_DEQUE = new ArrayDeque<>(0);
+	private static final int[] EMPTY_INT_ARRAY = new int[0];
 
 	private final boolean _emitBinaryTokens;
 
@@ -56,9 +56,10 @@ final class LineTokens {
 	private final Deque<IToken> _tokens;
 
 	/**
-	 * used only if `emitBinaryTokens` is true.
+	 * used only if `emitBinaryTokens` is true, pairs of start index and metadata, grown as needed.
 	 */
-	private final List<Integer> _binaryTokens;
+	private int[] _binaryTokens;
+	private int _binaryTokensCount = 0;
 
 	private int _lastTokenEndIndex = 0;
 
@@ -71,16 +72,30 @@ final class LineTokens {
 		final String lineText,
 		final List<TokenTypeMatcher> tokenTypeOverrides,
 		@Nullable final BalancedBracketSelectors balancedBracketSelectors) {
+		this(emitBinaryTokens, lineText, tokenTypeOverrides, balancedBracketSelectors, null);
+	}
+
+	/**
+	 * @param binaryTokensBuffer array the binary tokens are written to as long as it is large enough, e.g. the
+	 *        backing array of a buffer reused across lines
+	 */
+	LineTokens(final boolean emitBinaryTokens,
+		final String lineText,
+		final List<TokenTypeMatcher> tokenTypeOverrides,
+		@Nullable final BalancedBracketSelectors balancedBracketSelectors,
+		final int @Nullable [] binaryTokensBuffer) {
 
 		this._emitBinaryTokens = emitBinaryTokens;
 		this._tokenTypeOverrides = tokenTypeOverrides;
 		this._lineText = LOGGER.isLoggable(TRACE) ? lineText : ""; // store line only if it's logged
 		if (this._emitBinaryTokens) {
 			this._tokens = EMPTY_DEQUE;
-			this._binaryTokens = new ArrayList<>();
+			this._binaryTokens = binaryTokensBuffer != null && binaryTokensBuffer.length > 0
+				? binaryTokensBuffer
+				: new int[16];
 		} else {
 			this._tokens = new ArrayDeque<>();
-			this._binaryTokens = Collections.emptyList();
+			this._binaryTokens = EMPTY_INT_ARRAY;
 		}
 		this.balancedBracketSelectors = balancedBracketSelectors;
 	}
@@ -135,7 +150,7 @@ void produceFromScopes(final AttributedScopeStack scopesList, final int endIndex
 					0);
 			}
 
-			if (!this._binaryTokens.isEmpty() && getLastElement(this._binaryTokens) == metadata) {
+			if (this._binaryTokensCount > 0 && this._binaryTokens[this._binaryTokensCount - 1] == metadata) {
 				// no need to push a token with the same metadata
 				this._lastTokenEndIndex = endIndex;
 				return;
@@ -152,8 +167,11 @@ void produceFromScopes(final AttributedScopeStack scopesList, final int endIndex
 				}
 			}
 
-			this._binaryTokens.add(this._lastTokenEndIndex);
-			this._binaryTokens.add(metadata);
+			if (this._binaryTokensCount + 2 > this._binaryTokens.length) {
+				this._binaryTokens = Arrays.copyOf(this._binaryTokens, this._binaryTokens.length * 2);
+			}
+			this._binaryTokens[this._binaryTokensCount++] = this._lastTokenEndIndex;
+			this._binaryTokens[this._binaryTokensCount++] = metadata;
 
 			this._lastTokenEndIndex = endIndex;
 			return;
@@ -221,18 +239,41 @@ IToken[] getResult(final StateStack stack, final int lineLength) {
 	}
 
 	int[] getBinaryResult(final StateStack stack, final int lineLength) {
-		if (!this._binaryTokens.isEmpty() && this._binaryTokens.get(_binaryTokens.size() - 2) == lineLength - 1) {
+		completeBinaryTokens(stack, lineLength);
+		return Arrays.copyOf(this._binaryTokens, this._binaryTokensCount);
+	}
+
+	/**
+	 * @return the given buffer containing the tokens from position 0 to its limit, or a larger buffer if the
+	 *         capacity of the given one is not sufficient
+	 */
+	IntBuffer getBinaryResult(final StateStack stack, final int lineLength, final IntBuffer target) {
+		completeBinaryTokens(stack, lineLength);
+		final int count = this._binaryTokensCount;
+		if (target.hasArray() && target.arrayOffset() == 0 && target.array() == this._binaryTokens) {
+			// tokens have been written to the buffer's array directly
+			target.clear().limit(count);
+			return target;
+		}
+		if (target.capacity() < count) {
+			return IntBuffer.wrap(this._binaryTokens, 0, count);
+		}
+		target.clear();
+		target.put(this._binaryTokens, 0, count);
+		target.flip();
+		return target;
+	}
+
+	private void completeBinaryTokens(final StateStack stack, final int lineLength) {
+		if (this._binaryTokensCount > 0 && this._binaryTokens[this._binaryTokensCount - 2] == lineLength - 1) {
 			// pop produced token for newline
-			removeLastElement(this._binaryTokens);
-			removeLastElement(this._binaryTokens);
+			this._binaryTokensCount -= 2;
 		}
 
-		if (this._binaryTokens.isEmpty()) {
+		if (this._binaryTokensCount == 0) {
 			this._lastTokenEndIndex = -1;
 			this.produce(stack, lineLength);
-			this._binaryTokens.set(_binaryTokens.size() - 2, 0);
+			this._binaryTokens[this._binaryTokensCount - 2] = 0;
 		}
-
-		return _binaryTokens.stream().mapToInt(Integer::intValue).toArray();
 	}
 }
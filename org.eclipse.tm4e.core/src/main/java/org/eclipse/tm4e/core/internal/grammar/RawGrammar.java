@@ -145,6 +145,14 @@ public void setRepository(final IRawRepository repository) {
 		super.put(RawRule.REPOSITORY, repository);
 	}
 
+	@Override
+	public IRawGrammar withRepositoryOverlay(final IRawRule self, final IRawRule base) {
+		final var copy = new RawGrammar();
+		copy.putAll(this);
+		copy.setRepository(new RawRepositoryOverlay((IRawRepository) get(RawRule.REPOSITORY), self, base));
+		return copy;
+	}
+
 	@Override
 	public IRawRule toRawRule() {
 		return new RawRule() {
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.internal.grammar;
+
+import static org.eclipse.tm4e.core.internal.grammar.RawRepository.*;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tm4e.core.internal.parser.PropertySettable;
+import org.eclipse.tm4e.core.internal.types.IRawRepository;
+import org.eclipse.tm4e.core.internal.types.IRawRule;
+
+/**
+ * Repository view that has its own <code>$self</code> and <code>$base</code> rules and delegates all other lookups
+ * to the repository of the underlying raw grammar, which is shared and never modified.
+ */
+final class RawRepositoryOverlay implements IRawRepository {
+
+	@Nullable
+	private final IRawRepository delegate;
+	private IRawRule self;
+	private IRawRule base;
+
+	RawRepositoryOverlay(@Nullable final IRawRepository delegate, final IRawRule self, final IRawRule base) {
+		this.delegate = delegate;
+		this.self = self;
+		this.base = base;
+	}
+
+	@Override
+	public void putEntries(final PropertySettable<IRawRule> target) {
+		final var delegate = this.delegate;
+		if (delegate != null) {
+			delegate.putEntries(target);
+		}
+		target.setProperty(DOLLAR_SELF, self);
+		target.setProperty(DOLLAR_BASE, base);
+	}
+
+	@Override
+	@Nullable
+	public IRawRule getRule(final String name) {
+		switch (name) {
+		case DOLLAR_SELF:
+			return self;
+		case DOLLAR_BASE:
+			return base;
+		default:
+			final var delegate = this.delegate;
+			return delegate == null ? null : delegate.getRule(name);
+		}
+	}
+
+	@Override
+	public IRawRule getBase() {
+		return base;
+	}
+
+	@Override
+	public IRawRule getSelf() {
+		return self;
+	}
+
+	@Override
+	public void setSelf(final IRawRule self) {
+		this.self = self;
+	}
+
+	@Override
+	public void setBase(final IRawRule base) {
+		this.base = base;
+	}
+}
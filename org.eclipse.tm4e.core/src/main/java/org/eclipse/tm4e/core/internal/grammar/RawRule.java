@@ -17,7 +17,6 @@
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tm4e.core.internal.parser.PropertySettable;
-import org.eclipse.tm4e.core.internal.rule.RuleId;
 import org.eclipse.tm4e.core.internal.types.IRawCaptures;
 import org.eclipse.tm4e.core.internal.types.IRawRepository;
 import org.eclipse.tm4e.core.internal.types.IRawRule;
@@ -32,7 +31,6 @@ public class RawRule extends HashMap<String, @Nullable Object>
 	private static final String CONTENT_NAME = "contentName";
 	private static final String END = "end";
 	public static final String END_CAPTURES = "endCaptures";
-	private static final String ID = "id";
 	private static final String INCLUDE = "include";
 	private static final String MATCH = "match";
 	private static final String NAME = "name";
@@ -43,17 +41,6 @@ public class RawRule extends HashMap<String, @Nullable Object>
 
 	private static final long serialVersionUID = 1L;
 
-	@Nullable
-	@Override
-	public RuleId getId() {
-		return (RuleId) get(ID);
-	}
-
-	@Override
-	public void setId(final RuleId id) {
-		super.put(ID, id);
-	}
-
 	@Nullable
 	@Override
 	public String getName() {
@@ -52,14 +52,14 @@ public final class StateStack implements IStateStack {
 	 * This is relevant only while tokenizing a line, to detect endless loops.
 	 * Its value is meaningless across lines.
 	 */
-	private int _enterPos;
+	private final int _enterPos;
 
 	/**
 	 * The captured anchor position when this stack element was pushed.
 	 * This is relevant only while tokenizing a line, to restore the anchor position when popping.
 	 * Its value is meaningless across lines.
 	 */
-	private int _anchorPos;
+	private final int _anchorPos;
 
 	/**
 	 * The depth of the stack.
@@ -99,6 +99,18 @@ public final class StateStack implements IStateStack {
 	 */
 	final AttributedScopeStack contentNameScopesList;
 
+	/**
+	 * Hash of the rule ids and end rules of the whole stack, i.e. of the properties compared by
+	 * {@link #_structuralEquals}. Computed incrementally when pushed.
+	 */
+	private final int structuralHashCode;
+
+	/**
+	 * {@link #structuralHashCode} combined with the hash code of the {@link #contentNameScopesList}, consistent with
+	 * {@link #equals(Object)}
+	 */
+	private final int hashCode;
+
 	StateStack(
 		@Nullable final StateStack parent,
 		final RuleId ruleId,
@@ -118,6 +130,12 @@ public final class StateStack implements IStateStack {
 		this.endRule = endRule;
 		this.nameScopesList = nameScopesList;
 		this.contentNameScopesList = contentNameScopesList;
+
+		int structuralHashCode = parent == null ? 1 : parent.structuralHashCode;
+		structuralHashCode = 31 * structuralHashCode + ruleId.hashCode();
+		structuralHashCode = 31 * structuralHashCode + Objects.hashCode(endRule);
+		this.structuralHashCode = structuralHashCode;
+		hashCode = 31 * structuralHashCode + contentNameScopesList.hashCode();
 	}
 
 	@Override
@@ -132,6 +150,9 @@ private static boolean _equals(final StateStack a, final StateStack b) {
 		if (a == b) {
 			return true;
 		}
+		if (a.hashCode != b.hashCode) {
+			return false;
+		}
 		if (!_structuralEquals(a, b)) {
 			return false;
 		}
@@ -160,6 +181,7 @@ private static boolean _structuralEquals(
 			}
 
 			if (a.depth != b.depth
+				|| a.structuralHashCode != b.structuralHashCode
 				|| !Objects.equals(a.ruleId, b.ruleId)
 				|| !Objects.equals(a.endRule, b.endRule)) {
 				return false;
@@ -178,20 +200,30 @@ public int getDepth() {
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + Objects.hash(endRule, parent, contentNameScopesList, ruleId);
-		result = prime * result + depth;
-		return result;
+		return hashCode;
 	}
 
-	void reset() {
-		StateStack el = this;
-		while (el != null) {
-			el._enterPos = -1;
-			el._anchorPos = -1;
-			el = el.parent;
+	/**
+	 * States are shared between lines, models and threads and are therefore never modified.
+	 *
+	 * @return this stack if the positions of all its elements are already reset, otherwise a copy with reset positions
+	 *         that shares the already reset parent elements
+	 */
+	StateStack reset() {
+		final var parent = this.parent;
+		final var resetParent = parent == null ? null : parent.reset();
+		if (resetParent == parent && _enterPos == -1 && _anchorPos == -1) {
+			return this;
 		}
+		return new StateStack(
+			resetParent,
+			this.ruleId,
+			-1,
+			-1,
+			this.beginRuleCapturedEOL,
+			this.endRule,
+			this.nameScopesList,
+			this.contentNameScopesList);
 	}
 
 	@Nullable
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.internal.grammar;
+
+import java.nio.IntBuffer;
+import java.util.BitSet;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tm4e.core.grammar.IToken;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Bounded in-memory cache of line tokenization results of a {@link Grammar} keyed by the line text and the start
+ * state, so that identical lines with identical start states, e.g. after undo/redo, moving blocks of code or when the
+ * same file is opened multiple times, are not tokenized again.
+ * <p>
+ * Only results of lines that were tokenized completely are cached. The returned token arrays are copies, the
+ * {@link IToken} instances however are shared and must not be modified.
+ */
+final class TokenizationCache {
+
+	/**
+	 * @param prevState the start state or null for the first line
+	 * @param capturedEOLs the elements of the start state that have {@link StateStack#beginRuleCapturedEOL} set,
+	 *        indexed by their depth, or null if none. Not considered by {@link StateStack#equals(Object)}, but it
+	 *        determines the anchor position the line is tokenized with.
+	 */
+	private record Key(String lineText, @Nullable StateStack prevState, @Nullable BitSet capturedEOLs,
+		boolean emitBinaryTokens) {
+	}
+
+	/**
+	 * @param tokens either an <code>IToken[]</code> or an <code>int[]</code> array
+	 */
+	private record Value(Object tokens, StateStack ruleStack) {
+	}
+
+	private final Cache<Key, Value> cache;
+
+	/**
+	 * @param maximumSize the maximum number of cached results. When exceeded the least recently used results are
+	 *        evicted.
+	 */
+	TokenizationCache(final int maximumSize) {
+		cache = CacheBuilder.newBuilder()
+			.maximumSize(maximumSize)
+			.recordStats()
+			.build();
+	}
+
+	private static Key createKey(final String lineText, @Nullable final StateStack prevState,
+		final boolean emitBinaryTokens) {
+		if (prevState == null || prevState.equals(StateStack.NULL))
+			return new Key(lineText, null, null, emitBinaryTokens);
+
+		BitSet capturedEOLs = null;
+		for (StateStack el = prevState; el != null; el = el.pop()) {
+			if (el.beginRuleCapturedEOL) {
+				if (capturedEOLs == null) {
+					capturedEOLs = new BitSet();
+				}
+				capturedEOLs.set(el.getDepth());
+			}
+		}
+		return new Key(lineText, prevState, capturedEOLs, emitBinaryTokens);
+	}
+
+	/**
+	 * @param binaryTokensBuffer if not null, the cached binary tokens are copied into the buffer if it is large enough
+	 *
+	 * @return the cached result or null
+	 */
+	@Nullable
+	TokenizeLineResult<?> get(final String lineText, @Nullable final StateStack prevState,
+		final boolean emitBinaryTokens, @Nullable final IntBuffer binaryTokensBuffer) {
+		final var cached = cache.getIfPresent(createKey(lineText, prevState, emitBinaryTokens));
+		if (cached == null)
+			return null;
+
+		if (cached.tokens instanceof final IToken[] tokens)
+			return new TokenizeLineResult<>(tokens.clone(), cached.ruleStack, false);
+
+		final var binaryTokens = (int[]) cached.tokens;
+		if (binaryTokensBuffer == null)
+			return new TokenizeLineResult<>(binaryTokens.clone(), cached.ruleStack, false);
+
+		if (binaryTokensBuffer.capacity() < binaryTokens.length)
+			return new TokenizeLineResult<>(IntBuffer.wrap(binaryTokens.clone()), cached.ruleStack, false);
+
+		binaryTokensBuffer.clear();
+		binaryTokensBuffer.put(binaryTokens);
+		binaryTokensBuffer.flip();
+		return new TokenizeLineResult<>(binaryTokensBuffer, cached.ruleStack, false);
+	}
+
+	void put(final String lineText, @Nullable final StateStack prevState, final boolean emitBinaryTokens,
+		final TokenizeLineResult<?> result) {
+		if (result.isStoppedEarly())
+			return;
+
+		final Object tokens;
+		if (result.getTokens() instanceof final IToken[] tokenArray) {
+			tokens = tokenArray.clone();
+		} else if (result.getTokens() instanceof final int[] binaryTokens) {
+			tokens = binaryTokens.clone();
+		} else {
+			final var buffer = ((IntBuffer) result.getTokens()).duplicate();
+			final var binaryTokens = new int[buffer.remaining()];
+			buffer.get(binaryTokens);
+			tokens = binaryTokens;
+		}
+		cache.put(createKey(lineText, prevState, emitBinaryTokens), new Value(tokens, result.getRuleStack()));
+	}
+
+	void clear() {
+		cache.invalidateAll();
+	}
+
+	CacheStats stats() {
+		return cache.stats();
+	}
+}
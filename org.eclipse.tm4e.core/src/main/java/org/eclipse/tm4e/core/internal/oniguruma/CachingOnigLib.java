@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.internal.oniguruma;
+
+import java.util.List;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * {@link IOnigLib} that shares compiled regular expressions and scanners by their sources.
+ * <p>
+ * One instance is used per registry, so grammars embedded by several other grammars (e.g. JavaScript in HTML and
+ * Markdown) compile their regular expressions only once. Scanners and expressions hold no search state and can be
+ * used by multiple grammars and threads concurrently.
+ * <p>
+ * The number of cached scanners and expressions is bounded, since end and while patterns with back references are
+ * resolved with the captured text, e.g. the delimiter of a heredoc, so the number of distinct sources is not limited.
+ * The least recently used entries are evicted.
+ */
+public final class CachingOnigLib implements IOnigLib {
+
+	private static final int MAX_CACHED_SCANNERS = 10_000;
+	private static final int MAX_CACHED_REGEXPS = 20_000;
+
+	private final Cache<List<String>, OnigScanner> scanners;
+	private final Cache<String, OnigRegExp> regExps;
+
+	public CachingOnigLib() {
+		this(MAX_CACHED_SCANNERS, MAX_CACHED_REGEXPS);
+	}
+
+	CachingOnigLib(final int maxCachedScanners, final int maxCachedRegExps) {
+		scanners = CacheBuilder.newBuilder().maximumSize(maxCachedScanners).build();
+		regExps = CacheBuilder.newBuilder().maximumSize(maxCachedRegExps).build();
+	}
+
+	@Override
+	public OnigScanner createOnigScanner(final List<String> sources) {
+		final var scanner = scanners.getIfPresent(sources);
+		if (scanner != null) {
+			return scanner;
+		}
+		// not using a cache loader, to not block other lookups of the same sources while compiling
+		final var newScanner = new OnigScanner(new OnigSearcher(sources, this::getRegExp));
+		final var existing = scanners.asMap().putIfAbsent(List.copyOf(sources), newScanner);
+		return existing == null ? newScanner : existing;
+	}
+
+	private OnigRegExp getRegExp(final String source) {
+		final var regExp = regExps.getIfPresent(source);
+		if (regExp != null) {
+			return regExp;
+		}
+		final var newRegExp = new OnigRegExp(source);
+		final var existing = regExps.asMap().putIfAbsent(source, newRegExp);
+		return existing == null ? newRegExp : existing;
+	}
+
+	long getRegExpCount() {
+		return regExps.size();
+	}
+
+	long getScannerCount() {
+		return scanners.size();
+	}
+}
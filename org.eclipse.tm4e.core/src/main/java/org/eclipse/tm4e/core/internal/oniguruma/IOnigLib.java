@@ -0,0 +1,22 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.internal.oniguruma;
+
+import java.util.List;
+
+/**
+ * @see <a href=
+ *      "https://github.com/microsoft/vscode-textmate/blob/e8d1fc5d04b2fc91384c7a895f6c9ff296a38ac8/src/onigLib.ts">
+ *      github.com/microsoft/vscode-textmate/blob/main/src/onigLib.ts</a>
+ */
+public interface IOnigLib {
+
+	OnigScanner createOnigScanner(List<String> sources);
+}
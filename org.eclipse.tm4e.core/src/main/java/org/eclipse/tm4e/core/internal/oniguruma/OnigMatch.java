@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.internal.oniguruma;
+
+import java.util.Arrays;
+
+/**
+ * Reusable buffer receiving the outcome of {@link OnigScanner#findNextMatch(OnigString, int, OnigMatch)}.
+ * <p>
+ * The char based start and end offsets of all capture groups are stored in a flat array that only grows when a match
+ * has more capture groups than any previous one, so a single instance can be used for any number of searches without
+ * further allocations. Instances are not thread-safe.
+ */
+public final class OnigMatch {
+
+	private int index = -1;
+	private int captureCount;
+
+	/**
+	 * [start0, end0, start1, end1, ...]
+	 */
+	private int[] offsets = new int[16];
+
+	/**
+	 * @return the index of the matching regular expression in the scanner or -1 if there was no match
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return the number of capture groups including the group 0 representing the whole match
+	 */
+	public int getCaptureCount() {
+		return captureCount;
+	}
+
+	public int getStart(final int captureIndex) {
+		return offsets[captureIndex * 2];
+	}
+
+	public int getEnd(final int captureIndex) {
+		return offsets[captureIndex * 2 + 1];
+	}
+
+	public OnigCaptureIndex[] toCaptureIndices() {
+		final var captures = new OnigCaptureIndex[captureCount];
+		for (int i = 0; i < captureCount; i++) {
+			captures[i] = new OnigCaptureIndex(i, getStart(i), getEnd(i));
+		}
+		return captures;
+	}
+
+	void reset() {
+		index = -1;
+		captureCount = 0;
+	}
+
+	void set(final OnigResult result, final OnigString source) {
+		final int count = result.count();
+		if (offsets.length < count * 2) {
+			offsets = Arrays.copyOf(offsets, count * 2);
+		}
+		for (int i = 0; i < count; i++) {
+			final int loc = result.locationAt(i);
+			offsets[i * 2] = source.getCharIndexOfByte(loc);
+			offsets[i * 2 + 1] = source.getCharIndexOfByte(loc + result.lengthAt(i));
+		}
+		captureCount = count;
+		index = result.getIndex();
+	}
+}
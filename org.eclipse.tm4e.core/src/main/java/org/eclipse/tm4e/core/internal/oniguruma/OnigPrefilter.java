@@ -0,0 +1,462 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.internal.oniguruma;
+
+import static org.eclipse.tm4e.core.internal.utils.NullSafetyHelper.castNonNull;
+
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Cheap pre-check that locates the earliest position a regular expression can possibly match at, without entering the
+ * regex engine.
+ * <p>
+ * The filter is derived from the start of the pattern source and is strictly conservative: it consists of the set of
+ * UTF-8 bytes a match can start with and - if the pattern starts with a fixed text - that text as required literal.
+ * Patterns whose start cannot be determined reliably (e.g. because they can match the empty string, start with
+ * {@code .}, use negated character classes, or use inline options such as case insensitivity) get no filter at all.
+ */
+final class OnigPrefilter {
+
+	private static final String WHITESPACE = " \t\n\u000B\f\r";
+	private static final String DIGITS = "0123456789";
+	private static final String HEX_DIGITS = "0123456789abcdefABCDEF";
+	private static final String WORD_CHARS = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ_";
+
+	/**
+	 * @return the filter for the given pattern or null if the possible start of a match cannot be determined
+	 */
+	@Nullable
+	static OnigPrefilter of(final String pattern) {
+		if (hasInlineOptions(pattern))
+			return null;
+
+		final long[] firstBytes = new Parser(pattern).parseAlternatives(0, pattern.length());
+		if (firstBytes == null)
+			return null;
+
+		final byte[] literal = literalPrefix(pattern);
+		return new OnigPrefilter(firstBytes, literal.length > 1 ? literal : null);
+	}
+
+	/**
+	 * Isolated inline options like {@code a(?i)b|c} also apply to subsequent alternatives, so patterns using them are
+	 * not analyzed at all.
+	 */
+	private static boolean hasInlineOptions(final String pattern) {
+		for (int i = pattern.indexOf("(?"); i > -1; i = pattern.indexOf("(?", i + 1)) {
+			int backslashes = 0;
+			while (i - backslashes > 0 && pattern.charAt(i - backslashes - 1) == '\\')
+				backslashes++;
+			if (backslashes % 2 == 1)
+				continue;
+			final int optionsStart = i + 2;
+			if (optionsStart < pattern.length() && "imx-".indexOf(pattern.charAt(optionsStart)) > -1)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * 256 bit set of the UTF-8 bytes a match can start with
+	 */
+	private final long[] firstBytes;
+
+	/**
+	 * text every match starts with
+	 */
+	private final byte @Nullable [] literal;
+
+	private OnigPrefilter(final long[] firstBytes, final byte @Nullable [] literal) {
+		this.firstBytes = firstBytes;
+		this.literal = literal;
+	}
+
+	boolean canStartWith(final byte b) {
+		return (firstBytes[(b & 0xFF) >>> 6] & 1L << b) != 0;
+	}
+
+	/**
+	 * @return true if a match can start exactly at the given position
+	 */
+	boolean canMatchAt(final byte[] data, final int position, final int end) {
+		final byte[] literal = this.literal;
+		if (literal != null) {
+			return position + literal.length <= end && regionMatches(data, position, literal);
+		}
+		return position < end && canStartWith(data[position]);
+	}
+
+	/**
+	 * @return the first position in the range [start, end) a match can start at or -1 if there is none
+	 */
+	int findCandidate(final byte[] data, final int start, final int end) {
+		final byte[] literal = this.literal;
+		if (literal != null) {
+			final byte first = literal[0];
+			for (int i = start, max = end - literal.length; i <= max; i++) {
+				if (data[i] == first && regionMatches(data, i, literal))
+					return i;
+			}
+			return -1;
+		}
+
+		for (int i = start; i < end; i++) {
+			if (canStartWith(data[i]))
+				return i;
+		}
+		return -1;
+	}
+
+	private static boolean regionMatches(final byte[] data, final int offset, final byte[] literal) {
+		for (int i = 1; i < literal.length; i++) {
+			if (data[offset + i] != literal[i])
+				return false;
+		}
+		return data[offset] == literal[0];
+	}
+
+	/**
+	 * Collects the leading plain characters of a pattern without top-level alternatives, e.g. {@code class} in
+	 * {@code \bclass\b}.
+	 */
+	private static byte[] literalPrefix(final String pattern) {
+		final var prefix = new StringBuilder();
+		final int len = pattern.length();
+		int i = 0;
+		while (i < len) {
+			final char ch = pattern.charAt(i);
+			if (ch == '^') {
+				if (prefix.length() > 0)
+					break;
+				i++;
+				continue;
+			}
+
+			final int cp;
+			final int next;
+			if (ch == '\\') {
+				if (i + 1 == len)
+					break;
+				final int escaped = pattern.codePointAt(i + 1);
+				if (prefix.length() == 0 && isZeroWidthEscape(escaped)) {
+					i += 2;
+					continue;
+				}
+				cp = escapedChar(escaped);
+				if (cp < 0)
+					break;
+				next = i + 1 + Character.charCount(escaped);
+			} else if ("$.|?*+()[]{}".indexOf(ch) > -1) {
+				break;
+			} else {
+				cp = pattern.codePointAt(i);
+				next = i + Character.charCount(cp);
+			}
+
+			final char quantifier = next < len ? pattern.charAt(next) : 0;
+			if (quantifier == '?' || quantifier == '*' || quantifier == '{')
+				break;
+			prefix.appendCodePoint(cp);
+			if (quantifier == '+')
+				break;
+			i = next;
+		}
+
+		// any top-level alternative invalidates the prefix
+		if (prefix.length() > 0 && new Parser(pattern).findTopLevel('|', 0, len) > -1)
+			return new byte[0];
+		return prefix.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return the character denoted by an escape sequence like {@code \t} or {@code \.} or -1 if the escape sequence
+	 *         denotes something else
+	 */
+	private static int escapedChar(final int escaped) {
+		return switch (escaped) {
+			case 't' -> '\t';
+			case 'n' -> '\n';
+			case 'r' -> '\r';
+			case 'f' -> '\f';
+			case 'v' -> '\u000B';
+			case 'e' -> '\u001B';
+			case 'a' -> '\u0007';
+			default -> escaped >= 0x80 || !Character.isLetterOrDigit(escaped) ? escaped : -1;
+		};
+	}
+
+	private static boolean isZeroWidthEscape(final int escaped) {
+		return escaped == 'b' || escaped == 'B' || escaped == 'A' || escaped == 'G';
+	}
+
+	private static final class Parser {
+
+		private final String pattern;
+
+		Parser(final String pattern) {
+			this.pattern = pattern;
+		}
+
+		/**
+		 * @return the index of the given character outside of groups and character classes or -1
+		 */
+		int findTopLevel(final char target, final int start, final int end) {
+			int depth = 0;
+			for (int i = start; i < end; i++) {
+				final char ch = pattern.charAt(i);
+				if (ch == '\\') {
+					i++;
+				} else if (ch == '[') {
+					i = skipCharClass(i, end) - 1;
+					if (i < 0)
+						return -1;
+				} else if (ch == '(') {
+					depth++;
+				} else if (ch == ')') {
+					if (depth == 0)
+						return ch == target ? i : -1;
+					depth--;
+				} else if (ch == target && depth == 0) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * @return the index after the character class starting at the given index or -1 if it is not closed
+		 */
+		int skipCharClass(final int start, final int end) {
+			int depth = 0;
+			for (int i = start; i < end; i++) {
+				final char ch = pattern.charAt(i);
+				if (ch == '\\') {
+					i++;
+				} else if (ch == '[') {
+					depth++;
+					if (i + 1 < end && pattern.charAt(i + 1) == ']')
+						i++;
+					else if (i + 2 < end && pattern.charAt(i + 1) == '^' && pattern.charAt(i + 2) == ']')
+						i += 2;
+				} else if (ch == ']') {
+					depth--;
+					if (depth == 0)
+						return i + 1;
+				}
+			}
+			return -1;
+		}
+
+		long @Nullable [] parseAlternatives(final int start, final int end) {
+			final long[] result = new long[4];
+			int altStart = start;
+			while (true) {
+				int altEnd = findTopLevel('|', altStart, end);
+				if (altEnd == -1)
+					altEnd = end;
+				final long[] alt = parseSequence(altStart, altEnd);
+				if (alt == null)
+					return null;
+				addAll(result, alt);
+				if (altEnd == end)
+					return result;
+				altStart = altEnd + 1;
+			}
+		}
+
+		/**
+		 * @return the possible first bytes of the sequence or null if they are unknown or the sequence may match empty
+		 */
+		long @Nullable [] parseSequence(final int start, final int end) {
+			final long[] result = new long[4];
+			int i = start;
+			while (i < end) {
+				final char ch = pattern.charAt(i);
+				final long[] atom;
+				int next;
+				switch (ch) {
+					case '^':
+						i++;
+						continue;
+					case '\\': {
+						if (i + 1 == end)
+							return null;
+						final int escaped = pattern.codePointAt(i + 1);
+						if (isZeroWidthEscape(escaped)) {
+							i += 2;
+							continue;
+						}
+						atom = parseEscape(escaped);
+						next = i + 1 + Character.charCount(escaped);
+						break;
+					}
+					case '[': {
+						next = skipCharClass(i, end);
+						if (next == -1)
+							return null;
+						atom = parseCharClass(i + 1, next - 1);
+						break;
+					}
+					case '(': {
+						final int close = findTopLevel(')', i + 1, end);
+						if (close == -1)
+							return null;
+						next = close + 1;
+						if (pattern.startsWith("(?=", i) || pattern.startsWith("(?!", i)
+							|| pattern.startsWith("(?<=", i) || pattern.startsWith("(?<!", i)) {
+							// look-arounds only restrict the match, they do not consume anything
+							i = next;
+							continue;
+						}
+						final int contentStart;
+						if (pattern.startsWith("(?:", i) || pattern.startsWith("(?>", i)) {
+							contentStart = i + 3;
+						} else if (pattern.startsWith("(?<", i)) {
+							final int nameEnd = pattern.indexOf('>', i);
+							if (nameEnd == -1 || nameEnd > close)
+								return null;
+							contentStart = nameEnd + 1;
+						} else if (pattern.startsWith("(?", i)) {
+							return null;
+						} else {
+							contentStart = i + 1;
+						}
+						atom = parseAlternatives(contentStart, close);
+						break;
+					}
+					case '.', '$', '|', ')', '*', '+', '?', '{', '}':
+						return null;
+					default: {
+						final int cp = pattern.codePointAt(i);
+						atom = new long[4];
+						addFirstByte(atom, cp);
+						next = i + Character.charCount(cp);
+					}
+				}
+				if (atom == null)
+					return null;
+				addAll(result, atom);
+
+				// if the atom is optional the next one can start the match too
+				final char quantifier = next < end ? pattern.charAt(next) : 0;
+				if (quantifier == '?' || quantifier == '*') {
+					next++;
+				} else if (quantifier == '{' && next + 1 < end
+					&& (pattern.charAt(next + 1) == '0' || pattern.charAt(next + 1) == ',')) {
+					final int close = pattern.indexOf('}', next);
+					if (close == -1 || close >= end)
+						return null;
+					next = close + 1;
+				} else {
+					return result;
+				}
+				// skip lazy/possessive modifiers
+				while (next < end && (pattern.charAt(next) == '?' || pattern.charAt(next) == '+'))
+					next++;
+				i = next;
+			}
+			// the sequence may match the empty string
+			return null;
+		}
+
+		private long @Nullable [] parseEscape(final int escaped) {
+			final long[] result = new long[4];
+			switch (escaped) {
+				case 's' -> addChars(result, WHITESPACE);
+				case 'd' -> addChars(result, DIGITS);
+				case 'h' -> addChars(result, HEX_DIGITS);
+				case 'w' -> addChars(result, WORD_CHARS);
+				default -> {
+					final int cp = escapedChar(escaped);
+					if (cp < 0)
+						return null;
+					addFirstByte(result, cp);
+					return result;
+				}
+			}
+			// Unicode whitespace, digits and word characters
+			addRange(result, 0x80, 0xFF);
+			return result;
+		}
+
+		private long @Nullable [] parseCharClass(final int start, final int end) {
+			if (start < end && pattern.charAt(start) == '^')
+				return null;
+
+			final long[] result = new long[4];
+			int i = start;
+			while (i < end) {
+				final char ch = pattern.charAt(i);
+				final int cp;
+				if (ch == '[' || ch == '&' && i + 1 < end && pattern.charAt(i + 1) == '&')
+					return null;
+				if (ch == '\\') {
+					if (i + 1 == end)
+						return null;
+					final int escaped = pattern.codePointAt(i + 1);
+					i += 1 + Character.charCount(escaped);
+					if ("sdhw".indexOf(escaped) > -1) {
+						addAll(result, castNonNull(parseEscape(escaped)));
+						continue;
+					}
+					cp = escapedChar(escaped);
+					if (cp < 0)
+						return null;
+				} else {
+					cp = pattern.codePointAt(i);
+					i += Character.charCount(cp);
+				}
+
+				if (i + 1 < end && pattern.charAt(i) == '-') {
+					final int to = pattern.codePointAt(i + 1);
+					if (to == '\\' || to < cp)
+						return null;
+					i += 1 + Character.charCount(to);
+					if (cp < 0x80)
+						addRange(result, cp, Math.min(to, 0x7F));
+					if (to >= 0x80)
+						addRange(result, 0x80, 0xFF);
+				} else {
+					addFirstByte(result, cp);
+				}
+			}
+			return result;
+		}
+	}
+
+	private static void addFirstByte(final long[] bits, final int cp) {
+		if (cp < 0x80) {
+			addRange(bits, cp, cp);
+		} else {
+			final byte[] bytes = new String(Character.toChars(cp)).getBytes(StandardCharsets.UTF_8);
+			addRange(bits, bytes[0] & 0xFF, bytes[0] & 0xFF);
+		}
+	}
+
+	private static void addChars(final long[] bits, final String chars) {
+		for (int i = 0; i < chars.length(); i++) {
+			addRange(bits, chars.charAt(i), chars.charAt(i));
+		}
+	}
+
+	private static void addRange(final long[] bits, final int from, final int to) {
+		for (int b = from; b <= to; b++) {
+			bits[b >>> 6] |= 1L << b;
+		}
+	}
+
+	private static void addAll(final long[] bits, final long[] other) {
+		for (int i = 0; i < bits.length; i++) {
+			bits[i] |= other[i];
+		}
+	}
+}
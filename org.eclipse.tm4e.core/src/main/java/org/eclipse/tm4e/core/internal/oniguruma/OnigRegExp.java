@@ -27,7 +27,6 @@
 import org.joni.Matcher;
 import org.joni.Option;
 import org.joni.Regex;
-import org.joni.Region;
 import org.joni.Syntax;
 import org.joni.WarnCallback;
 import org.joni.exception.SyntaxException;
@@ -38,20 +37,42 @@
  */
 final class OnigRegExp {
 
-	@Nullable
-	private OnigString lastSearchString;
+	/**
+	 * Search state of a regular expression for one {@link OnigString}.
+	 * <p>
+	 * Kept in the searched string instead of the regular expression, so that compiled rules can be shared between
+	 * threads tokenizing different lines concurrently.
+	 */
+	static final class SearchState {
 
-	private int lastSearchPosition = -1;
+		/**
+		 * matcher reused for all searches in the string, Joni matchers are bound to the searched bytes
+		 */
+		final Matcher matcher;
 
-	@Nullable
-	private OnigResult lastSearchResult;
+		/**
+		 * holds the outcome of the last successful search, reused to avoid allocations
+		 */
+		final OnigResult result = new OnigResult();
+
+		int lastSearchPosition = -1;
+		boolean lastSearchFound;
+
+		SearchState(final OnigRegExp regExp, final OnigString str) {
+			matcher = regExp.regex.matcher(str.bytesUTF8);
+		}
+	}
 
 	private final Regex regex;
 
 	private final boolean hasGAnchor;
 
+	@Nullable
+	private final OnigPrefilter prefilter;
+
 	OnigRegExp(final String source) {
 		hasGAnchor = source.contains("\\G");
+		prefilter = OnigPrefilter.of(source);
 		final byte[] pattern = source.getBytes(StandardCharsets.UTF_8);
 		try {
 			regex = new Regex(pattern, 0, pattern.length, Option.CAPTURE_GROUP, UTF8Encoding.INSTANCE, Syntax.DEFAULT,
@@ -63,32 +84,65 @@ final class OnigRegExp {
 
 	@Nullable
 	OnigResult search(final OnigString str, final int startPosition) {
+		final var state = str.searchState(this);
 		if (hasGAnchor) {
 			// Should not use caching, because the regular expression
 			// targets the current search position (\G)
-			return search(str.bytesUTF8, startPosition, str.bytesCount);
+			return search(state, str, startPosition);
 		}
 
-		final var lastSearchResult0 = this.lastSearchResult;
-		if (lastSearchString == str
-			&& lastSearchPosition <= startPosition
-			&& (lastSearchResult0 == null || lastSearchResult0.locationAt(0) >= startPosition)) {
-			return lastSearchResult0;
+		if (state.lastSearchPosition > -1
+			&& state.lastSearchPosition <= startPosition
+			&& (!state.lastSearchFound || state.result.locationAt(0) >= startPosition)) {
+			return state.lastSearchFound ? state.result : null;
 		}
 
-		lastSearchString = str;
-		lastSearchPosition = startPosition;
-		lastSearchResult = search(str.bytesUTF8, startPosition, str.bytesCount);
-		return lastSearchResult;
+		state.lastSearchPosition = startPosition;
+		final var result = search(state, str, startPosition);
+		state.lastSearchFound = result != null;
+		return result;
 	}
 
+	/**
+	 * @return the result if the expression matches exactly at the given byte position, otherwise null
+	 */
 	@Nullable
-	private OnigResult search(final byte[] data, final int startPosition, final int end) {
-		final Matcher matcher = regex.matcher(data);
-		final int status = matcher.search(startPosition, end, Option.DEFAULT);
+	OnigResult matchAt(final OnigString str, final int position) {
+		final var prefilter = this.prefilter;
+		if (prefilter != null && !prefilter.canMatchAt(str.bytesUTF8, position, str.bytesCount)) {
+			return null;
+		}
+		final var state = str.searchState(this);
+		// the shared result object gets overwritten, so a cached search result is no longer valid
+		state.lastSearchPosition = -1;
+		final Matcher matcher = state.matcher;
+		if (matcher.match(position, str.bytesCount, Option.DEFAULT) != Matcher.FAILED) {
+			return state.result.set(matcher);
+		}
+		return null;
+	}
+
+	@Nullable
+	private OnigResult search(final SearchState state, final OnigString str, final int startPosition) {
+		final byte[] data = str.bytesUTF8;
+		final int end = str.bytesCount;
+		int searchStart = startPosition;
+		final var prefilter = this.prefilter;
+		if (prefilter != null) {
+			final int candidate = prefilter.findCandidate(data, startPosition, end);
+			if (candidate == -1) {
+				// no position the pattern can start matching at, skip the regex engine
+				return null;
+			}
+			if (!hasGAnchor) {
+				// \G refers to the search start, so it must not be moved
+				searchStart = candidate;
+			}
+		}
+		final Matcher matcher = state.matcher;
+		final int status = matcher.search(searchStart, end, Option.DEFAULT);
 		if (status != Matcher.FAILED) {
-			final Region region = matcher.getEagerRegion();
-			return new OnigResult(region, -1);
+			return state.result.set(matcher);
 		}
 		return null;
 	}
@@ -16,20 +16,35 @@
  */
 package org.eclipse.tm4e.core.internal.oniguruma;
 
+import org.eclipse.jdt.annotation.Nullable;
+import org.joni.Matcher;
 import org.joni.Region;
 
 /**
+ * Reusable view of the outcome of the last successful search of a {@link Matcher}. The values are only valid until
+ * the matcher is used again.
+ *
  * @see <a href="https://github.com/atom/node-oniguruma/blob/master/src/onig-result.cc">
  *      github.com/atom/node-oniguruma/blob/master/src/onig-result.cc</a>
  */
 final class OnigResult {
 
-	private int indexInScanner;
-	private final Region region;
+	private int indexInScanner = -1;
+
+	/**
+	 * the capture group offsets or null if the expression has no capture groups
+	 */
+	@Nullable
+	private Region region;
+	private int begin;
+	private int end;
 
-	OnigResult(final Region region, final int indexInScanner) {
-		this.region = region;
-		this.indexInScanner = indexInScanner;
+	OnigResult set(final Matcher matcher) {
+		region = matcher.getRegion();
+		begin = matcher.getBegin();
+		end = matcher.getEnd();
+		indexInScanner = -1;
+		return this;
 	}
 
 	int getIndex() {
@@ -41,7 +56,8 @@ void setIndex(final int index) {
 	}
 
 	int locationAt(final int index) {
-		final int bytes = region.beg[index];
+		final var region = this.region;
+		final int bytes = region == null ? begin : region.beg[index];
 		if (bytes > 0) {
 			return bytes;
 		}
@@ -49,11 +65,13 @@ int locationAt(final int index) {
 	}
 
 	int count() {
-		return region.numRegs;
+		final var region = this.region;
+		return region == null ? 1 : region.numRegs;
 	}
 
 	int lengthAt(final int index) {
-		final int bytes = region.end[index] - region.beg[index];
+		final var region = this.region;
+		final int bytes = region == null ? end - begin : region.end[index] - region.beg[index];
 		if (bytes > 0) {
 			return bytes;
 		}
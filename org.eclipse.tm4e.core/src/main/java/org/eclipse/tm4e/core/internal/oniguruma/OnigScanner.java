@@ -32,6 +32,27 @@ public OnigScanner(final Collection<String> regexps) {
 		searcher = new OnigSearcher(regexps);
 	}
 
+	OnigScanner(final OnigSearcher searcher) {
+		this.searcher = searcher;
+	}
+
+	/**
+	 * Allocation-free variant of {@link #findNextMatchSync(OnigString, int)}.
+	 *
+	 * @param match the buffer receiving the index of the matching regular expression and the capture group offsets
+	 *
+	 * @return true if one of the regular expressions matched
+	 */
+	public boolean findNextMatch(final OnigString source, final int startPosition, final OnigMatch match) {
+		final OnigResult bestResult = searcher.search(source, startPosition);
+		if (bestResult != null) {
+			match.set(bestResult, source);
+			return true;
+		}
+		match.reset();
+		return false;
+	}
+
 	@Nullable
 	public OnigNextMatchResult findNextMatchSync(final OnigString source, final int startPosition) {
 		final OnigResult bestResult = searcher.search(source, startPosition);
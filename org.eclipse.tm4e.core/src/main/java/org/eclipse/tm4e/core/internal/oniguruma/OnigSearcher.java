@@ -16,21 +16,139 @@
  */
 package org.eclipse.tm4e.core.internal.oniguruma;
 
+import static java.lang.System.Logger.Level.*;
+
+import java.lang.System.Logger;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Function;
 
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tm4e.core.TMException;
 
 /**
+ * Searches a list of regular expressions for the leftmost match. If multiple expressions match at the same location,
+ * the one with the lowest index wins.
+ * <p>
+ * Instead of running one search per expression over the remainder of the line, all expressions that can be safely
+ * combined are joined into a single alternation {@code (?:p0)|(?:p1)|...}. One search of that alternation yields the
+ * leftmost location any of them matches at. The combined expressions are then tried in order with an anchored match at
+ * that location to determine the winner and its capture groups. Expressions whose semantics depend on the search
+ * start or on group numbering (see {@link #isCombinable(String)}) are still searched individually.
+ *
  * @see <a href="https://github.com/atom/node-oniguruma/blob/master/src/onig-searcher.cc">
  *      github.com/atom/node-oniguruma/blob/master/src/onig-searcher.cc</a>
  */
 final class OnigSearcher {
 
+	private static final Logger LOGGER = System.getLogger(OnigSearcher.class.getName());
+
 	private final List<OnigRegExp> regExps;
 
+	/**
+	 * alternation of all combinable expressions or null if less than two expressions are combinable
+	 */
+	@Nullable
+	private final OnigRegExp combinedRegExp;
+
+	/**
+	 * indexes of the expressions contained in {@link #combinedRegExp} in ascending order
+	 */
+	private final int[] combinedIndexes;
+
+	/**
+	 * indexes of the expressions that are searched individually in ascending order
+	 */
+	private final int[] separateIndexes;
+
 	OnigSearcher(final Collection<String> regExps) {
-		this.regExps = regExps.stream().map(OnigRegExp::new).toList();
+		this(regExps, OnigRegExp::new);
+	}
+
+	/**
+	 * @param regExpFactory creates or looks up the compiled expression of a source, e.g. to share them between
+	 *        scanners
+	 */
+	OnigSearcher(final Collection<String> regExps, final Function<String, OnigRegExp> regExpFactory) {
+		this.regExps = regExps.stream().map(regExpFactory).toList();
+
+		final var combinedIndexes = new ArrayList<Integer>();
+		final var combinedSource = new StringBuilder();
+		int index = 0;
+		for (final String regExp : regExps) {
+			if (isCombinable(regExp)) {
+				if (!combinedIndexes.isEmpty()) {
+					combinedSource.append('|');
+				}
+				combinedSource.append("(?:").append(regExp).append(')');
+				combinedIndexes.add(index);
+			}
+			index++;
+		}
+
+		OnigRegExp combinedRegExp = null;
+		if (combinedIndexes.size() > 1) {
+			try {
+				combinedRegExp = regExpFactory.apply(combinedSource.toString());
+			} catch (final TMException ex) {
+				LOGGER.log(DEBUG, "Cannot combine regular expressions, searching them individually: {0}", ex.getMessage());
+				combinedIndexes.clear();
+			}
+		} else {
+			combinedIndexes.clear();
+		}
+		this.combinedRegExp = combinedRegExp;
+		this.combinedIndexes = combinedIndexes.stream().mapToInt(Integer::intValue).toArray();
+
+		final int[] separateIndexes = new int[this.regExps.size() - this.combinedIndexes.length];
+		for (int i = 0, j = 0, k = 0; i < this.regExps.size(); i++) {
+			if (j < this.combinedIndexes.length && this.combinedIndexes[j] == i) {
+				j++;
+			} else {
+				separateIndexes[k++] = i;
+			}
+		}
+		this.separateIndexes = separateIndexes;
+	}
+
+	/**
+	 * An expression can only be part of the combined alternation if it behaves the same there as when searched on
+	 * its own. This is not the case for expressions that use
+	 * <ul>
+	 * <li>the search start anchor {@code \G}, because the winner is verified with an anchored match at the found
+	 * location,
+	 * <li>{@code \K}, because the reported match start no longer is the location the match attempt started at,
+	 * <li>back-references, sub-expression calls and conditionals, because group numbers are shifted in the
+	 * alternation,
+	 * <li>the extended mode option {@code x}, because a comment would swallow the rest of the alternation.
+	 * </ul>
+	 */
+	static boolean isCombinable(final String regExp) {
+		final int len = regExp.length();
+		for (int i = 0; i < len; i++) {
+			final char ch = regExp.charAt(i);
+			if (ch == '\\') {
+				if (++i == len)
+					return false;
+				final char escaped = regExp.charAt(i);
+				if (escaped == 'G' || escaped == 'K' || escaped == 'k' || escaped == 'g'
+					|| escaped >= '1' && escaped <= '9')
+					return false;
+			} else if (ch == '(' && i + 2 < len && regExp.charAt(i + 1) == '?') {
+				if (regExp.charAt(i + 2) == '(')
+					return false;
+				// inline options, e.g. (?i) (?x-m) (?ix:
+				for (int j = i + 2; j < len; j++) {
+					final char option = regExp.charAt(j);
+					if (option == 'x')
+						return false;
+					if (option != 'i' && option != 'm' && option != '-')
+						break;
+				}
+			}
+		}
+		return true;
 	}
 
 	@Nullable
@@ -39,24 +157,41 @@ OnigResult search(final OnigString source, final int charOffset) {
 
 		int bestLocation = 0;
 		OnigResult bestResult = null;
-		int index = 0;
 
-		for (final OnigRegExp regExp : regExps) {
-			final OnigResult result = regExp.search(source, byteOffset);
+		final OnigRegExp combinedRegExp = this.combinedRegExp;
+		if (combinedRegExp != null) {
+			final OnigResult combinedResult = combinedRegExp.search(source, byteOffset);
+			if (combinedResult != null && combinedResult.count() > 0) {
+				// no combined expression matches before this location, so the first one matching at it wins
+				final int location = combinedResult.locationAt(0);
+				for (final int index : combinedIndexes) {
+					final OnigResult result = regExps.get(index).matchAt(source, location);
+					if (result != null) {
+						bestLocation = location;
+						bestResult = result;
+						bestResult.setIndex(index);
+						break;
+					}
+				}
+			}
+		}
+
+		for (final int index : separateIndexes) {
+			if (bestResult != null && bestLocation == byteOffset && bestResult.getIndex() < index) {
+				break;
+			}
+
+			final OnigResult result = regExps.get(index).search(source, byteOffset);
 			if (result != null && result.count() > 0) {
 				final int location = result.locationAt(0);
 
-				if (bestResult == null || location < bestLocation) {
+				if (bestResult == null || location < bestLocation
+					|| location == bestLocation && index < bestResult.getIndex()) {
 					bestLocation = location;
 					bestResult = result;
 					bestResult.setIndex(index);
 				}
-
-				if (location == byteOffset) {
-					break;
-				}
 			}
-			index++;
 		}
 		return bestResult;
 	}
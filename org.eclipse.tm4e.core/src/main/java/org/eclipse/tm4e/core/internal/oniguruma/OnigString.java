@@ -20,6 +20,8 @@
 
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.jcodings.specific.UTF8Encoding;
@@ -160,6 +162,11 @@ public static OnigString of(final String str) {
 	public final int bytesCount;
 	final byte[] bytesUTF8;
 
+	/**
+	 * search states of the regular expressions applied to this string, strings are confined to the tokenizing thread
+	 */
+	private final Map<OnigRegExp, OnigRegExp.SearchState> searchStates = new IdentityHashMap<>();
+
 	private OnigString(final String content, final byte[] bytesUTF8) {
 		this.content = content;
 		this.bytesUTF8 = bytesUTF8;
@@ -172,6 +179,15 @@ protected final String throwOutOfBoundsException(final String indexName, final i
 			indexName + " index " + index + " is out of range " + minIndex + ".." + maxIndex + " of " + this);
 	}
 
+	OnigRegExp.SearchState searchState(final OnigRegExp regExp) {
+		var state = searchStates.get(regExp);
+		if (state == null) {
+			state = new OnigRegExp.SearchState(regExp, this);
+			searchStates.put(regExp, state);
+		}
+		return state;
+	}
+
 	abstract int getByteIndexOfChar(int charIndex);
 
 	abstract int getCharIndexOfByte(int byteIndex);
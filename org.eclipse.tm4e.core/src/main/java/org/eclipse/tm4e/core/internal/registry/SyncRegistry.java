@@ -26,6 +26,8 @@
 import org.eclipse.tm4e.core.internal.grammar.BalancedBracketSelectors;
 import org.eclipse.tm4e.core.internal.grammar.Grammar;
 import org.eclipse.tm4e.core.internal.grammar.ScopeStack;
+import org.eclipse.tm4e.core.internal.oniguruma.CachingOnigLib;
+import org.eclipse.tm4e.core.internal.oniguruma.IOnigLib;
 import org.eclipse.tm4e.core.internal.theme.StyleAttributes;
 import org.eclipse.tm4e.core.internal.theme.Theme;
 import org.eclipse.tm4e.core.internal.types.IRawGrammar;
@@ -40,14 +42,33 @@ public final class SyncRegistry implements IGrammarRepository, IThemeProvider {
 	private final Map<String, Grammar> _grammars = new HashMap<>();
 	private final Map<String, IRawGrammar> _rawGrammars = new HashMap<>();
 	private final Map<String, Collection<String>> _injectionGrammars = new HashMap<>();
-	private Theme _theme;
+	/** volatile since themes can be switched while lines are tokenized by other threads */
+	private volatile Theme _theme;
 
-	public SyncRegistry(final Theme theme) {
+	/**
+	 * shared by all grammars of this registry, so regular expressions of grammars embedded by multiple other grammars
+	 * are compiled only once
+	 */
+	private final IOnigLib _onigLib = new CachingOnigLib();
+
+	private final int _tokenizationCacheSize;
+
+	/**
+	 * @param tokenizationCacheSize the maximum number of line tokenization results cached per grammar, 0 to disable
+	 *        caching
+	 */
+	public SyncRegistry(final Theme theme, final int tokenizationCacheSize) {
 		this._theme = theme;
+		this._tokenizationCacheSize = tokenizationCacheSize;
 	}
 
 	public void setTheme(final Theme theme) {
 		this._theme = theme;
+		// the cached theme matches, tokens and states contain the style attributes of the previous theme
+		this._grammars.values().forEach(grammar -> {
+			grammar.clearThemeMatchCache();
+			grammar.clearTokenizationCache();
+		});
 	}
 
 	public List<String> getColorMap() {
@@ -117,7 +138,9 @@ public IGrammar grammarForScopeName(
 				tokenTypes,
 				balancedBracketSelectors,
 				this,
-				this));
+				this,
+				this._onigLib,
+				this._tokenizationCacheSize));
 		}
 		return this._grammars.get(scopeName);
 	}
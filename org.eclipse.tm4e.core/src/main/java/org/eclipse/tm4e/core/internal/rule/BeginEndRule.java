@@ -42,7 +42,14 @@ public final class BeginEndRule extends Rule {
 	final RuleId[] patterns;
 
 	@Nullable
-	private RegExpSourceList cachedCompiledPatterns;
+	private volatile RegExpSourceList cachedCompiledPatterns;
+
+	/**
+	 * copy of {@link #cachedCompiledPatterns} with the back-references of the end pattern resolved for the most
+	 * recently requested end source
+	 */
+	@Nullable
+	private volatile RegExpSourceList cachedCompiledPatternsWithResolvedEnd;
 
 	BeginEndRule(final RuleId id, @Nullable final String name, @Nullable final String contentName, final String begin,
 		final List<@Nullable CaptureRule> beginCaptures, @Nullable final String end,
@@ -77,15 +84,23 @@ public void collectPatterns(final IRuleRegistry grammar, final RegExpSourceList
 		out.add(this.begin);
 	}
 
+	@Override
+	public void precompile(final IRuleRegistry grammar) {
+		if (!this.endHasBackReferences) {
+			// otherwise the end pattern can only be compiled once the begin captures are known
+			super.precompile(grammar);
+		}
+	}
+
 	@Override
 	public CompiledRule compile(final IRuleRegistry grammar, @Nullable final String endRegexSource) {
-		return getCachedCompiledPatterns(grammar, endRegexSource).compile();
+		return getCachedCompiledPatterns(grammar, endRegexSource).compile(grammar);
 	}
 
 	@Override
 	public CompiledRule compileAG(final IRuleRegistry grammar, @Nullable final String endRegexSource,
 		final boolean allowA, final boolean allowG) {
-		return getCachedCompiledPatterns(grammar, endRegexSource).compileAG(allowA, allowG);
+		return getCachedCompiledPatterns(grammar, endRegexSource).compileAG(grammar, allowA, allowG);
 	}
 
 	private RegExpSourceList getCachedCompiledPatterns(final IRuleRegistry grammar,
@@ -107,11 +122,14 @@ private RegExpSourceList getCachedCompiledPatterns(final IRuleRegistry grammar,
 			this.cachedCompiledPatterns = cachedCompiledPatterns;
 		}
 		if (this.endHasBackReferences && endRegexSource != null) {
-			if (this.applyEndPatternLast) {
-				cachedCompiledPatterns.setSource(cachedCompiledPatterns.length() - 1, endRegexSource);
-			} else {
-				cachedCompiledPatterns.setSource(0, endRegexSource);
+			// the shared list is never modified, as the grammar may be used by multiple threads concurrently
+			final var resolved = this.cachedCompiledPatternsWithResolvedEnd;
+			final var base = resolved == null ? cachedCompiledPatterns : resolved;
+			final var result = base.withSource(this.applyEndPatternLast ? base.length() - 1 : 0, endRegexSource);
+			if (result != resolved) {
+				this.cachedCompiledPatternsWithResolvedEnd = result;
 			}
+			return result;
 		}
 		return cachedCompiledPatterns;
 	}
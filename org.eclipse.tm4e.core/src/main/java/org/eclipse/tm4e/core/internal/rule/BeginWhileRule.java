@@ -39,10 +39,10 @@ public final class BeginWhileRule extends Rule {
 	final RuleId[] patterns;
 
 	@Nullable
-	private RegExpSourceList cachedCompiledPatterns;
+	private volatile RegExpSourceList cachedCompiledPatterns;
 
 	@Nullable
-	private RegExpSourceList cachedCompiledWhilePatterns;
+	private volatile RegExpSourceList cachedCompiledWhilePatterns;
 
 	BeginWhileRule(final RuleId id, @Nullable final String name, @Nullable final String contentName, final String begin,
 		final List<@Nullable CaptureRule> beginCaptures, final String _while,
@@ -67,39 +67,51 @@ public void collectPatterns(final IRuleRegistry grammar, final RegExpSourceList
 		out.add(this.begin);
 	}
 
+	@Override
+	public void precompile(final IRuleRegistry grammar) {
+		super.precompile(grammar);
+		if (!this.whileHasBackReferences) {
+			// otherwise the while pattern can only be compiled once the begin captures are known
+			compileWhileAG(grammar, null, false, false);
+			compileWhileAG(grammar, null, false, true);
+			compileWhileAG(grammar, null, true, false);
+			compileWhileAG(grammar, null, true, true);
+		}
+	}
+
 	@Override
 	public CompiledRule compile(final IRuleRegistry grammar, @Nullable final String endRegexSource) {
-		return getCachedCompiledPatterns(grammar).compile();
+		return getCachedCompiledPatterns(grammar).compile(grammar);
 	}
 
 	@Override
 	public CompiledRule compileAG(final IRuleRegistry grammar, @Nullable final String endRegexSource,
 		final boolean allowA,
 		final boolean allowG) {
-		return getCachedCompiledPatterns(grammar).compileAG(allowA, allowG);
+		return getCachedCompiledPatterns(grammar).compileAG(grammar, allowA, allowG);
 	}
 
 	private RegExpSourceList getCachedCompiledPatterns(final IRuleRegistry grammar) {
 		var cachedCompiledPatterns = this.cachedCompiledPatterns;
 		if (cachedCompiledPatterns == null) {
 			cachedCompiledPatterns = new RegExpSourceList();
-			this.cachedCompiledPatterns = cachedCompiledPatterns;
 
 			for (final var pattern : this.patterns) {
 				final var rule = grammar.getRule(pattern);
 				rule.collectPatterns(grammar, cachedCompiledPatterns);
 			}
+			this.cachedCompiledPatterns = cachedCompiledPatterns;
 		}
 		return cachedCompiledPatterns;
 	}
 
-	public CompiledRule compileWhile(@Nullable final String endRegexSource) {
-		return getCachedCompiledWhilePatterns(endRegexSource).compile();
+	public CompiledRule compileWhile(final IRuleRegistry grammar, @Nullable final String endRegexSource) {
+		return getCachedCompiledWhilePatterns(endRegexSource).compile(grammar);
 	}
 
-	public CompiledRule compileWhileAG(@Nullable final String endRegexSource, final boolean allowA,
-		final boolean allowG) {
-		return getCachedCompiledWhilePatterns(endRegexSource).compileAG(allowA, allowG);
+	public CompiledRule compileWhileAG(final IRuleRegistry grammar, @Nullable final String endRegexSource,
+		final boolean allowA, final boolean allowG) {
+		return getCachedCompiledWhilePatterns(endRegexSource).compileAG(grammar, allowA, allowG);
 	}
 
 	private RegExpSourceList getCachedCompiledWhilePatterns(@Nullable final String endRegexSource) {
@@ -110,7 +122,12 @@ private RegExpSourceList getCachedCompiledWhilePatterns(@Nullable final String e
 			this.cachedCompiledWhilePatterns = cachedCompiledWhilePatterns;
 		}
 		if (whileHasBackReferences) {
-			cachedCompiledWhilePatterns.setSource(0, defaultIfNull(endRegexSource, "\uFFFF"));
+			// the list is replaced instead of modified, as the grammar may be used by multiple threads concurrently
+			final var resolved = cachedCompiledWhilePatterns.withSource(0, defaultIfNull(endRegexSource, "\uFFFF"));
+			if (resolved != cachedCompiledWhilePatterns) {
+				this.cachedCompiledWhilePatterns = resolved;
+			}
+			return resolved;
 		}
 		return cachedCompiledWhilePatterns;
 	}
@@ -33,6 +33,11 @@ public final class CaptureRule extends Rule {
 		this.retokenizeCapturedWithRuleId = retokenizeCapturedWithRuleId;
 	}
 
+	@Override
+	public void precompile(final IRuleRegistry grammar) {
+		// capture rules have no patterns of their own
+	}
+
 	@Override
 	public void collectPatterns(final IRuleRegistry grammar, final RegExpSourceList out) {
 		throw new UnsupportedOperationException();
@@ -18,6 +18,7 @@
 
 import java.util.List;
 
+import org.eclipse.tm4e.core.internal.oniguruma.IOnigLib;
 import org.eclipse.tm4e.core.internal.oniguruma.OnigScanner;
 
 /**
@@ -31,9 +32,9 @@ public final class CompiledRule {
 	public final OnigScanner scanner;
 	public final RuleId[] rules;
 
-	CompiledRule(final List<String> regExps, final RuleId[] rules) {
+	CompiledRule(final IOnigLib onigLib, final List<String> regExps, final RuleId[] rules) {
 		this.debugRegExps = regExps;
 		this.rules = rules;
-		this.scanner = new OnigScanner(regExps);
+		this.scanner = onigLib.createOnigScanner(regExps);
 	}
 }
@@ -16,6 +16,9 @@
  */
 package org.eclipse.tm4e.core.internal.rule;
 
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tm4e.core.internal.types.IRawRule;
+
 /**
  * @see <a href=
  *      "https://github.com/microsoft/vscode-textmate/blob/e8d1fc5d04b2fc91384c7a895f6c9ff296a38ac8/src/rule.ts#L40">
@@ -23,4 +26,14 @@
  */
 public interface IRuleFactoryHelper extends IRuleRegistry, IGrammarRegistry {
 
+	/**
+	 * Raw rules may be shared by multiple grammars, so the IDs of the rules compiled from them are kept by the
+	 * compiling grammar instead of the raw rules.
+	 *
+	 * @return the ID of the rule compiled from the given raw rule or null if it was not compiled yet
+	 */
+	@Nullable
+	RuleId getRuleId(IRawRule rawRule);
+
+	void setRuleId(IRawRule rawRule, RuleId ruleId);
 }
@@ -18,12 +18,14 @@
 
 import java.util.function.Function;
 
+import org.eclipse.tm4e.core.internal.oniguruma.IOnigLib;
+
 /**
  * @see <a href=
  *      "https://github.com/microsoft/vscode-textmate/blob/e8d1fc5d04b2fc91384c7a895f6c9ff296a38ac8/src/rule.ts#L31">
  *      github.com/microsoft/vscode-textmate/blob/main/src/rule.ts</a>
  */
-public interface IRuleRegistry {
+public interface IRuleRegistry extends IOnigLib {
 
 	/**
 	 * @throws IndexOutOfBoundsException if no rule with the given id was found.
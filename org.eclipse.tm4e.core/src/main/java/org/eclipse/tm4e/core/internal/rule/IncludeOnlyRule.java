@@ -29,7 +29,7 @@ final class IncludeOnlyRule extends Rule {
 	final RuleId[] patterns;
 
 	@Nullable
-	private RegExpSourceList cachedCompiledPatterns;
+	private volatile RegExpSourceList cachedCompiledPatterns;
 
 	IncludeOnlyRule(final RuleId id, @Nullable final String name, @Nullable final String contentName,
 		final CompilePatternsResult patterns) {
@@ -48,14 +48,14 @@ public void collectPatterns(final IRuleRegistry grammar, final RegExpSourceList
 
 	@Override
 	public CompiledRule compile(final IRuleRegistry grammar, @Nullable final String endRegexSource) {
-		return getCachedCompiledPatterns(grammar).compile();
+		return getCachedCompiledPatterns(grammar).compile(grammar);
 	}
 
 	@Override
 	public CompiledRule compileAG(final IRuleRegistry grammar, @Nullable final String endRegexSource,
 		final boolean allowA,
 		final boolean allowG) {
-		return getCachedCompiledPatterns(grammar).compileAG(allowA, allowG);
+		return getCachedCompiledPatterns(grammar).compileAG(grammar, allowA, allowG);
 	}
 
 	private RegExpSourceList getCachedCompiledPatterns(final IRuleRegistry grammar) {
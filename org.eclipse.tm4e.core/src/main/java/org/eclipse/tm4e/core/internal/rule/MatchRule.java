@@ -31,7 +31,7 @@ public final class MatchRule extends Rule {
 	public final List<@Nullable CaptureRule> captures;
 
 	@Nullable
-	private RegExpSourceList cachedCompiledPatterns;
+	private volatile RegExpSourceList cachedCompiledPatterns;
 
 	MatchRule(final RuleId id, @Nullable final String name, final String match,
 		final List<@Nullable CaptureRule> captures) {
@@ -40,6 +40,11 @@ public final class MatchRule extends Rule {
 		this.captures = captures;
 	}
 
+	@Override
+	public void precompile(final IRuleRegistry grammar) {
+		// the pattern of a match rule is only scanned as part of the patterns of its parent rule
+	}
+
 	@Override
 	public void collectPatterns(final IRuleRegistry grammar, final RegExpSourceList out) {
 		out.add(this.match);
@@ -47,13 +52,13 @@ public void collectPatterns(final IRuleRegistry grammar, final RegExpSourceList
 
 	@Override
 	public CompiledRule compile(final IRuleRegistry grammar, @Nullable final String endRegexSource) {
-		return getCachedCompiledPatterns(grammar).compile();
+		return getCachedCompiledPatterns(grammar).compile(grammar);
 	}
 
 	@Override
 	public CompiledRule compileAG(final IRuleRegistry grammar, @Nullable final String endRegexSource,
 		final boolean allowA, final boolean allowG) {
-		return getCachedCompiledPatterns(grammar).compileAG(allowA, allowG);
+		return getCachedCompiledPatterns(grammar).compileAG(grammar, allowA, allowG);
 	}
 
 	private RegExpSourceList getCachedCompiledPatterns(final IRuleRegistry grammar) {
@@ -19,8 +19,10 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.tm4e.core.internal.oniguruma.IOnigLib;
 
 /**
  * @see <a href=
@@ -32,17 +34,13 @@ final class RegExpSourceList {
 	private final List<RegExpSource> items = new ArrayList<>();
 	private boolean hasAnchors;
 
+	/*
+	 * The list is not modified anymore once it is published by a rule, so lazily compiling the rules at worst
+	 * happens concurrently more than once with equivalent results.
+	 */
 	@Nullable
-	private CompiledRule cached;
-	private final CompiledRule[][] anchorCache = new CompiledRule[2][2];
-
-	private void disposeCache() {
-		cached = null;
-		anchorCache[0][0] = null;
-		anchorCache[0][1] = null;
-		anchorCache[1][0] = null;
-		anchorCache[1][1] = null;
-	}
+	private volatile CompiledRule cached;
+	private final AtomicReferenceArray<CompiledRule> anchorCache = new AtomicReferenceArray<>(4);
 
 	void add(final RegExpSource item) {
 		items.add(item);
@@ -62,40 +60,55 @@ int length() {
 		return items.size();
 	}
 
-	void setSource(final int index, final String newSource) {
+	/**
+	 * @return this list if the item at the given index already has the given source, otherwise a copy of this list
+	 *         with the item replaced by one having the given source
+	 */
+	RegExpSourceList withSource(final int index, final String newSource) {
 		final RegExpSource r = items.get(index);
-		if (!Objects.equals(r.getSource(), newSource)) {
-			disposeCache();
-			r.setSource(newSource);
+		if (Objects.equals(r.getSource(), newSource)) {
+			return this;
+		}
+		final var copy = new RegExpSourceList();
+		for (int i = 0, len = items.size(); i < len; i++) {
+			if (i == index) {
+				final var item = r.clone();
+				item.setSource(newSource);
+				copy.add(item);
+			} else {
+				copy.add(items.get(i));
+			}
 		}
+		return copy;
 	}
 
-	CompiledRule compile() {
+	CompiledRule compile(final IOnigLib onigLib) {
 		var cached = this.cached;
 		if (cached == null) {
 			final List<String> regexps = items.stream().map(RegExpSource::getSource).toList();
-			cached = this.cached = new CompiledRule(regexps, items.stream().map(e -> e.ruleId).toArray(RuleId[]::new));
+			cached = this.cached = new CompiledRule(onigLib, regexps,
+				items.stream().map(e -> e.ruleId).toArray(RuleId[]::new));
 		}
 		return cached;
 	}
 
-	CompiledRule compileAG(final boolean allowA, final boolean allowG) {
+	CompiledRule compileAG(final IOnigLib onigLib, final boolean allowA, final boolean allowG) {
 		if (!hasAnchors) {
-			return compile();
+			return compile(onigLib);
 		}
 
-		final var indexA = allowA ? 1 : 0;
-		final var indexG = allowG ? 1 : 0;
+		final var index = (allowA ? 2 : 0) + (allowG ? 1 : 0);
 
-		var rule = anchorCache[indexA][indexG];
+		var rule = anchorCache.get(index);
 		if (rule == null) {
-			rule = anchorCache[indexA][indexG] = resolveAnchors(allowA, allowG);
+			rule = resolveAnchors(onigLib, allowA, allowG);
+			anchorCache.set(index, rule);
 		}
 		return rule;
 	}
 
-	private CompiledRule resolveAnchors(final boolean allowA, final boolean allowG) {
+	private CompiledRule resolveAnchors(final IOnigLib onigLib, final boolean allowA, final boolean allowG) {
 		final List<String> regexps = items.stream().map(e -> e.resolveAnchors(allowA, allowG)).toList();
-		return new CompiledRule(regexps, items.stream().map(e -> e.ruleId).toArray(RuleId[]::new));
+		return new CompiledRule(onigLib, regexps, items.stream().map(e -> e.ruleId).toArray(RuleId[]::new));
 	}
 }
@@ -16,6 +16,8 @@
  */
 package org.eclipse.tm4e.core.internal.rule;
 
+import java.util.function.Consumer;
+
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tm4e.core.internal.oniguruma.OnigCaptureIndex;
 import org.eclipse.tm4e.core.internal.utils.RegexSource;
@@ -63,6 +65,31 @@ public String getContentName(final CharSequence lineText, final OnigCaptureIndex
 		return RegexSource.replaceCaptures(contentName, lineText, captureIndices);
 	}
 
+	/**
+	 * Passes the names and content names of this rule that do not depend on captured text to the given consumer.
+	 */
+	public void collectScopeNames(final Consumer<String> out) {
+		final var name = this.name;
+		if (!nameIsCapturing && name != null) {
+			out.accept(name);
+		}
+		final var contentName = this.contentName;
+		if (!contentNameIsCapturing && contentName != null) {
+			out.accept(contentName);
+		}
+	}
+
+	/**
+	 * Eagerly compiles the patterns of this rule for all combinations of the \A and \G anchors, so they are not
+	 * compiled on first use while tokenizing.
+	 */
+	public void precompile(final IRuleRegistry grammar) {
+		compileAG(grammar, null, false, false);
+		compileAG(grammar, null, false, true);
+		compileAG(grammar, null, true, false);
+		compileAG(grammar, null, true, true);
+	}
+
 	public abstract void collectPatterns(IRuleRegistry grammar, RegExpSourceList out);
 
 	public abstract CompiledRule compile(IRuleRegistry grammar, @Nullable String endRegexSource);
@@ -48,9 +48,10 @@ private static CaptureRule createCaptureRule(final IRuleFactoryHelper helper, @N
 
 	public static RuleId getCompiledRuleId(final IRawRule desc, final IRuleFactoryHelper helper,
 		final IRawRepository repository) {
-		if (desc.getId() == null) {
-			helper.registerRule(ruleId -> {
-				desc.setId(ruleId);
+		var descId = helper.getRuleId(desc);
+		if (descId == null) {
+			descId = helper.registerRule(ruleId -> {
+				helper.setRuleId(desc, ruleId);
 
 				final var ruleMatch = desc.getMatch();
 				if (ruleMatch != null) {
@@ -100,9 +101,9 @@ begin, _compileCaptures(defaultIfNull(desc.getBeginCaptures(), desc.getCaptures(
 						repository),
 					desc.isApplyEndPatternLast(),
 					_compilePatterns(desc.getPatterns(), helper, repository));
-			});
+			}).id;
 		}
-		return castNonNull(desc.getId());
+		return descId;
 	}
 
 	private static List<@Nullable CaptureRule> _compileCaptures(@Nullable final IRawCaptures captures,
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.internal.theme;
+
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Immutable form of a fully built {@link ThemeTrieElement} tree used by {@link Theme#match} to look up the rules of a
+ * scope.
+ * <p>
+ * The children of each node are held in an array sorted by segment, which is binary searched by comparing the
+ * segments directly against the matched scope name, i.e. without allocating substrings. The rules of each node are
+ * sorted by specificity once when the tree is frozen.
+ */
+final class FrozenThemeTrieElement {
+
+	private static final String[] NO_SEGMENTS = {};
+	private static final FrozenThemeTrieElement[] NO_CHILDREN = {};
+
+	private final List<ThemeTrieElementRule> rules;
+	private final String[] childSegments;
+	private final FrozenThemeTrieElement[] children;
+
+	/**
+	 * @param rules the rules of this node sorted by specificity
+	 * @param childSegments the segments of the children in ascending order
+	 */
+	FrozenThemeTrieElement(final List<ThemeTrieElementRule> rules, final String[] childSegments,
+		final FrozenThemeTrieElement[] children) {
+		this.rules = rules;
+		this.childSegments = childSegments.length == 0 ? NO_SEGMENTS : childSegments;
+		this.children = children.length == 0 ? NO_CHILDREN : children;
+	}
+
+	/**
+	 * @return the rules of the deepest node matching the dot separated segments of the given scope, sorted by
+	 *         specificity. The returned list is unmodifiable.
+	 */
+	List<ThemeTrieElementRule> match(final String scope) {
+		var element = this;
+		final int scopeLen = scope.length();
+		int segmentStart = 0;
+		while (segmentStart < scopeLen) {
+			int segmentEnd = scope.indexOf('.', segmentStart);
+			if (segmentEnd == -1) {
+				segmentEnd = scopeLen;
+			}
+			final var child = element.findChild(scope, segmentStart, segmentEnd);
+			if (child == null) {
+				break;
+			}
+			element = child;
+			segmentStart = segmentEnd + 1;
+		}
+		return element.rules;
+	}
+
+	@Nullable
+	private FrozenThemeTrieElement findChild(final String scope, final int segmentStart, final int segmentEnd) {
+		int low = 0;
+		int high = childSegments.length - 1;
+		while (low <= high) {
+			final int mid = low + high >>> 1;
+			final int cmp = compare(childSegments[mid], scope, segmentStart, segmentEnd);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else
+				return children[mid];
+		}
+		return null;
+	}
+
+	/**
+	 * Compares the given segment with the given region of the scope like {@link String#compareTo(String)}.
+	 */
+	private static int compare(final String segment, final String scope, final int regionStart, final int regionEnd) {
+		final int segmentLen = segment.length();
+		final int regionLen = regionEnd - regionStart;
+		final int len = Math.min(segmentLen, regionLen);
+		for (int i = 0; i < len; i++) {
+			final char c1 = segment.charAt(i);
+			final char c2 = scope.charAt(regionStart + i);
+			if (c1 != c2)
+				return c1 - c2;
+		}
+		return segmentLen - regionLen;
+	}
+}
@@ -16,9 +16,7 @@
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 import org.eclipse.jdt.annotation.Nullable;
@@ -51,15 +49,18 @@ public static Theme createFromParsedTheme(
 		return resolveParsedThemeRules(source, colorMap);
 	}
 
-	private final Map<String /* scopeName */, List<ThemeTrieElementRule>> _cachedMatchRoot = new HashMap<>();
-
 	private final ColorMap _colorMap;
 	private final StyleAttributes _defaults;
 	private final ThemeTrieElement _root;
+	private final FrozenThemeTrieElement _frozenRoot;
 
+	/**
+	 * @param root the fully built rule tree, must not be modified afterwards
+	 */
 	public Theme(final ColorMap colorMap, final StyleAttributes defaults, final ThemeTrieElement root) {
 		this._colorMap = colorMap;
 		this._root = root;
+		this._frozenRoot = root.freeze();
 		this._defaults = defaults;
 	}
 
@@ -78,9 +79,9 @@ public StyleAttributes match(@Nullable final ScopeStack scopePath) {
 		}
 		final var scopeName = scopePath.scopeName;
 
-		final var matchingTrieElements = this._cachedMatchRoot.computeIfAbsent(
-			scopeName,
-			k -> this._root.match(k));
+		// lookups in the immutable frozen trie do not allocate, so unlike upstream the matching rules are not
+		// additionally cached per scope name, i.e. in a map that would grow without bounds
+		final var matchingTrieElements = this._frozenRoot.match(scopeName);
 
 		final var effectiveRule = findFirstMatching(matchingTrieElements,
 			v -> _scopePathMatchesParentScopes(scopePath.parent, v.parentScopes));
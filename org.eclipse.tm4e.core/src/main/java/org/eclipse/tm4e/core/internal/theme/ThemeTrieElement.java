@@ -12,9 +12,11 @@
 package org.eclipse.tm4e.core.internal.theme;
 
 import static org.eclipse.tm4e.core.internal.utils.MoreCollections.*;
+import static org.eclipse.tm4e.core.internal.utils.NullSafetyHelper.*;
 import static org.eclipse.tm4e.core.internal.utils.StringUtils.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -85,27 +87,18 @@ private static int _cmpBySpecificity(final ThemeTrieElementRule a, final ThemeTr
 		return b.scopeDepth - a.scopeDepth;
 	}
 
-	public List<ThemeTrieElementRule> match(final String scope) {
-		if ("".equals(scope)) {
-			return ThemeTrieElement._sortBySpecificity(asArrayList(this._mainRule, this._rulesWithParentScopes));
+	/**
+	 * Creates an immutable copy of this tree for matching. Must be called after all rules were inserted.
+	 */
+	FrozenThemeTrieElement freeze() {
+		final var rules = _sortBySpecificity(asArrayList(this._mainRule, this._rulesWithParentScopes));
+		final var childSegments = this._children.keySet().toArray(String[]::new);
+		Arrays.sort(childSegments);
+		final var children = new FrozenThemeTrieElement[childSegments.length];
+		for (int i = 0; i < childSegments.length; i++) {
+			children[i] = castNonNull(this._children.get(childSegments[i])).freeze();
 		}
-
-		final int dotIndex = scope.indexOf('.');
-		String head;
-		String tail;
-		if (dotIndex == -1) {
-			head = scope;
-			tail = "";
-		} else {
-			head = scope.substring(0, dotIndex);
-			tail = scope.substring(dotIndex + 1);
-		}
-
-		if (this._children.containsKey(head)) {
-			return this._children.get(head).match(tail);
-		}
-
-		return ThemeTrieElement._sortBySpecificity(asArrayList(this._mainRule, this._rulesWithParentScopes));
+		return new FrozenThemeTrieElement(List.copyOf(rules), childSegments, children);
 	}
 
 	public void insert(final int scopeDepth, final String scope, @Nullable final List<String> parentScopes,
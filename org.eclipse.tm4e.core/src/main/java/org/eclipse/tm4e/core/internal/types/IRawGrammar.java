@@ -51,6 +51,12 @@ public interface IRawGrammar {
 
 	void setRepository(IRawRepository repository);
 
+	/**
+	 * @return a shallow copy of this grammar with a repository that has the given <code>$self</code> and
+	 *         <code>$base</code> rules, all other raw rules are shared with this grammar which is not modified
+	 */
+	IRawGrammar withRepositoryOverlay(IRawRule self, IRawRule base);
+
 	IRawRule toRawRule();
 
 }
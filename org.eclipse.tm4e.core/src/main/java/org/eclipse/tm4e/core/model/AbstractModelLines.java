@@ -11,9 +11,11 @@
  */
 package org.eclipse.tm4e.core.model;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tm4e.core.grammar.IStateStack;
@@ -24,6 +26,10 @@
  * Abstract class for Model lines used by {@link TMModel}.
  * <p>
  * Implementation class must synchronize lines with the lines of the editor content when it changed.
+ * <p>
+ * The lines are held in an array based list to provide constant time indexed access. Lines added or removed by a
+ * single edit are inserted/removed in bulk. Concurrent readers, e.g. the tokenizer thread and the presentation
+ * reconciler, do not block each other.
  */
 public abstract class AbstractModelLines {
 
@@ -34,34 +40,54 @@ static final class ModelLine {
 		 */
 		volatile boolean isInvalid = true;
 		IStateStack startState = StateStack.NULL;
-		List<TMToken> tokens = Collections.emptyList();
+		/**
+		 * the tokens of the line, either as (startIndex, typeId) pairs, see {@link TokenTypeDictionary}, or as
+		 * (startIndex, metadata) pairs, see {@link ITMModel.TokenFormat#ENCODED}
+		 */
+		int[] tokens = TokenTypeDictionary.NO_TOKENS;
 	}
 
-	private final List<ModelLine> list = new LinkedList<>();
+	private final List<ModelLine> list = new ArrayList<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/** incremented on every change of the lines to detect modifications during background tokenization */
+	private final AtomicInteger modificationCount = new AtomicInteger();
 
 	@Nullable
 	private TMModel model;
 
 	void setModel(@Nullable final TMModel model) {
 		this.model = model;
-		synchronized (list) {
+		lock.readLock().lock();
+		try {
 			list.forEach(line -> line.isInvalid = true);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private static List<ModelLine> newModelLines(final int count) {
+		final var lines = new ArrayList<ModelLine>(count);
+		for (int i = 0; i < count; i++) {
+			lines.add(new ModelLine());
 		}
+		return lines;
 	}
 
 	protected void addLines(final int lineIndex, final int count) {
 		if (count < 1)
 			return;
 
-		synchronized (list) {
+		lock.writeLock().lock();
+		try {
 			final var firstLine = getOrNull(lineIndex);
-			for (int i = 0; i < count; i++) {
-				list.add(lineIndex, new ModelLine());
-			}
+			list.addAll(lineIndex, newModelLines(count));
 			if (firstLine != null) {
 				list.get(lineIndex).startState = firstLine.startState;
 			}
 			updateLine(lineIndex);
+		} finally {
+			lock.writeLock().unlock();
 		}
 	}
 
@@ -77,12 +103,13 @@ protected void removeLines(final int lineIndex, int count) {
 		if (count < 1)
 			return;
 
-		synchronized (list) {
+		lock.writeLock().lock();
+		try {
 			count = Math.min(count, getNumberOfLines() - lineIndex);
-			for (int i = 0; i < count; i++) {
-				list.remove(lineIndex);
-			}
+			list.subList(lineIndex, lineIndex + count).clear();
 			updateLine(lineIndex);
+		} finally {
+			lock.writeLock().unlock();
 		}
 	}
 
@@ -105,20 +132,20 @@ protected void replaceLines(final int lineIndex, int linesRemoved, final int lin
 			return;
 		}
 
-		synchronized (list) {
+		lock.writeLock().lock();
+		try {
 			final var firstLine = getOrNull(lineIndex);
 			linesRemoved = Math.min(linesRemoved, getNumberOfLines() - lineIndex);
-			for (int i = 0; i < linesRemoved; i++) {
-				list.remove(lineIndex);
-			}
-			for (int i = 0; i < linesAdded; i++) {
-				list.add(lineIndex, new ModelLine());
-			}
+			final var replacedLines = list.subList(lineIndex, lineIndex + linesRemoved);
+			replacedLines.clear();
+			replacedLines.addAll(newModelLines(linesAdded));
 
 			if (firstLine != null) {
 				list.get(lineIndex).startState = firstLine.startState;
 			}
 			updateLine(lineIndex);
+		} finally {
+			lock.writeLock().unlock();
 		}
 	}
 
@@ -128,6 +155,14 @@ protected void replaceLines(final int lineIndex, int linesRemoved, final int lin
 	 * @param lineIndex (0-based)
 	 */
 	protected void updateLine(final int lineIndex) {
+		// under the write lock, so results of a background tokenization are not applied concurrently, see
+		// #runIfNotModifiedSince
+		lock.writeLock().lock();
+		try {
+			modificationCount.incrementAndGet();
+		} finally {
+			lock.writeLock().unlock();
+		}
 		if (model != null) {
 			model.invalidateLine(lineIndex);
 		}
@@ -137,23 +172,72 @@ protected void updateLine(final int lineIndex) {
 	 * @throws IndexOutOfBoundsException if <code>lineIndex < 0 || lineIndex >= {@link #getNumberOfLines()}</code>
 	 */
 	ModelLine get(final int lineIndex) {
-		synchronized (list) {
+		lock.readLock().lock();
+		try {
 			return list.get(lineIndex);
+		} finally {
+			lock.readLock().unlock();
 		}
 	}
 
 	@Nullable
 	ModelLine getOrNull(final int lineIndex) {
-		synchronized (list) {
+		lock.readLock().lock();
+		try {
 			if (lineIndex > -1 && lineIndex < list.size())
 				return list.get(lineIndex);
+		} finally {
+			lock.readLock().unlock();
 		}
 		return null;
 	}
 
+	/**
+	 * @return true if the given line and all lines below it are invalid
+	 */
+	boolean isInvalidFrom(final int lineIndex) {
+		lock.readLock().lock();
+		try {
+			if (lineIndex < 0 || lineIndex >= list.size())
+				return false;
+			for (int i = lineIndex; i < list.size(); i++) {
+				if (!list.get(i).isInvalid)
+					return false;
+			}
+			return true;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	int getModificationCount() {
+		return modificationCount.get();
+	}
+
+	/**
+	 * Runs the given action while the lines cannot be modified, if they were not modified since the given
+	 * modification count was obtained.
+	 *
+	 * @return true if the action was run
+	 */
+	boolean runIfNotModifiedSince(final int modificationCount, final Runnable action) {
+		lock.writeLock().lock();
+		try {
+			if (this.modificationCount.get() != modificationCount)
+				return false;
+			action.run();
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
 	public int getNumberOfLines() {
-		synchronized (list) {
+		lock.readLock().lock();
+		try {
 			return list.size();
+		} finally {
+			lock.readLock().unlock();
 		}
 	}
 
@@ -167,7 +251,8 @@ public void dispose() {
 
 	@Override
 	public String toString() {
-		synchronized (list) {
+		lock.readLock().lock();
+		try {
 			return StringUtils.toString(this, sb -> {
 				if (!list.isEmpty()) {
 					for (int i = 0; i < list.size(); i++) {
@@ -179,6 +264,8 @@ public String toString() {
 					sb.setLength(sb.length() - 2);
 				}
 			});
+		} finally {
+			lock.readLock().unlock();
 		}
 	}
 }
\ No newline at end of file
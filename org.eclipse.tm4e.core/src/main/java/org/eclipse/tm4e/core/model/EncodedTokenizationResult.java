@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.model;
+
+import org.eclipse.tm4e.core.grammar.IStateStack;
+
+/**
+ * Result of {@link ITokenizationSupport#tokenizeEncoded}.
+ *
+ * @see <a href="https://github.com/microsoft/vscode/blob/main/src/vs/editor/common/languages.ts">
+ *      github.com/microsoft/vscode/blob/main/src/vs/editor/common/languages.ts</a>
+ */
+public final class EncodedTokenizationResult {
+
+	final int[] tokens;
+
+	final IStateStack endState;
+
+	final boolean stoppedEarly;
+
+	public EncodedTokenizationResult(final int[] tokens, final IStateStack endState, final boolean stoppedEarly) {
+		this.tokens = tokens;
+		this.endState = endState;
+		this.stoppedEarly = stoppedEarly;
+	}
+
+	public IStateStack getEndState() {
+		return endState;
+	}
+
+	/**
+	 * @return the tokens as pairs of start index and encoded metadata, see
+	 *         {@link org.eclipse.tm4e.core.grammar.IGrammar#tokenizeLine2(String)}
+	 */
+	public int[] getTokens() {
+		return tokens;
+	}
+
+	/**
+	 * Did tokenization stop early due to reaching the time limit.
+	 */
+	public boolean isStoppedEarly() {
+		return stoppedEarly;
+	}
+}
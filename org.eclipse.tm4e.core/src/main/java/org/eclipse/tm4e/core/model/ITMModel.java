@@ -24,6 +24,33 @@
  */
 public interface ITMModel {
 
+	/**
+	 * Priority of the background tokenization of a model compared to other models sharing the same executor, e.g.
+	 * models of focused or visible documents should be tokenized before models of documents in the background.
+	 */
+	enum TokenizationPriority {
+		LOW,
+		NORMAL,
+		HIGH
+	}
+
+	/**
+	 * Format in which a model stores the tokens of its lines.
+	 */
+	enum TokenFormat {
+		/**
+		 * Tokens with a type derived from the scope names of the tokens, see {@link ITMModel#getLineTokens(int)}.
+		 */
+		TYPES,
+
+		/**
+		 * Tokens with the encoded metadata computed by the grammar, i.e. the language id, the standard token type and
+		 * the font style and color ids resolved via the theme of the grammar's registry, see
+		 * {@link ITMModel#getLineEncodedTokens(int)}. The scope names of the tokens are not materialized.
+		 */
+		ENCODED
+	}
+
 	/**
 	 * Returns the TextMate grammar to use to parse for each lines of the document the TextMate tokens.
 	 *
@@ -51,13 +78,57 @@ public interface ITMModel {
 	 */
 	void removeModelTokensChangedListener(IModelTokensChangedListener listener);
 
+	/**
+	 * Informs the model which lines are currently visible in the UI. Invalid lines of this range are tokenized
+	 * before the invalid lines above it. If their exact start state is not known yet, they are tokenized based on their
+	 * last known start state and tokenized again once the preceding lines are up-to-date.
+	 *
+	 * @param fromLineIndex 0-based index of the first visible line
+	 * @param toLineIndex 0-based index of the last visible line
+	 */
+	default void setVisibleRange(final int fromLineIndex, final int toLineIndex) {
+	}
+
+	default TokenizationPriority getTokenizationPriority() {
+		return TokenizationPriority.NORMAL;
+	}
+
+	default void setTokenizationPriority(final TokenizationPriority priority) {
+	}
+
+	default TokenizationTimeBudget getTokenizationTimeBudget() {
+		return TokenizationTimeBudget.DEFAULT;
+	}
+
+	default void setTokenizationTimeBudget(final TokenizationTimeBudget timeBudget) {
+	}
+
 	void dispose();
 
 	/**
 	 * @param lineIndex 0-based
 	 *
 	 * @throws IndexOutOfBoundsException
+	 * @throws IllegalStateException if the model's token format is not {@link TokenFormat#TYPES}
 	 */
 	@Nullable
 	List<TMToken> getLineTokens(int lineIndex);
+
+	/**
+	 * @param lineIndex 0-based
+	 *
+	 * @return the tokens as pairs of start index and encoded metadata, see
+	 *         {@link IGrammar#tokenizeLine2(String)}. The returned array must not be modified.
+	 *
+	 * @throws IndexOutOfBoundsException
+	 * @throws IllegalStateException if the model's token format is not {@link TokenFormat#ENCODED}
+	 */
+	@Nullable
+	default int[] getLineEncodedTokens(final int lineIndex) {
+		throw new IllegalStateException("Tokens of model are stored in format " + getTokenFormat());
+	}
+
+	default TokenFormat getTokenFormat() {
+		return TokenFormat.TYPES;
+	}
 }
@@ -37,4 +37,17 @@ public interface ITokenizationSupport {
 	 */
 	TokenizationResult tokenize(String line, @Nullable IStateStack state, @Nullable Integer offsetDelta,
 		@Nullable Duration timeLimit);
+
+	/**
+	 * Tokenizes the given line into tokens with encoded metadata, i.e. without materializing the scope names of the
+	 * tokens.
+	 *
+	 * @param timeLimit duration after which tokenization is stopped
+	 *
+	 * @throws UnsupportedOperationException if not supported by the implementation
+	 */
+	default EncodedTokenizationResult tokenizeEncoded(final String line, @Nullable final IStateStack state,
+		@Nullable final Duration timeLimit) {
+		throw new UnsupportedOperationException();
+	}
 }
@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.model;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Listener that merges the {@link ModelTokensChangedEvent}s of a {@link ITMModel} emitted within a short period of
+ * time, e.g. while a large document is tokenized, so that consumers like the UI are not flooded with events.
+ * <p>
+ * The line ranges of all received events are merged into a set of non-overlapping ranges. The consumer is signaled
+ * once the oldest pending change reached the max latency or the number of changed lines reached the max batch size,
+ * whatever comes first. After being signaled the consumer pulls the merged changes via {@link #pollChanges()} when it
+ * is ready to process them. Until then changes keep being merged and the consumer is not signaled again, i.e. there
+ * is at most one outstanding signal.
+ * <p>
+ * Instances are intended to be registered with one model at a time. If an event of another model is received, the
+ * pending changes of the previous model are discarded.
+ */
+public final class ModelTokensChangedEventCoalescer implements IModelTokensChangedListener {
+
+	private final Executor delayedExecutor;
+	private final int maxBatchSize;
+	private final Runnable onChangesAvailable;
+
+	/** pending changed line ranges, fromLineNumber -> toLineNumber */
+	private final TreeMap<Integer, Integer> pendingRanges = new TreeMap<>();
+	private int pendingLineCount;
+
+	@Nullable
+	private ITMModel model;
+
+	/** true if a delayed signal is scheduled */
+	private boolean signalScheduled;
+
+	/** true if the consumer was signaled but did not poll the changes yet */
+	private boolean signaled;
+
+	/**
+	 * Creates a coalescer that pushes the merged changes to the given listener.
+	 *
+	 * @param maxLatency the maximum time a change is held back
+	 * @param maxBatchSize the number of changed lines that causes the changes to be delivered without further delay
+	 * @param listener listener that is notified with the merged changes, either by the thread delivering the event
+	 *        that exceeded the max batch size or by a background thread. It is not notified again before the previous
+	 *        notification returned.
+	 */
+	public ModelTokensChangedEventCoalescer(final Duration maxLatency, final int maxBatchSize,
+		final IModelTokensChangedListener listener) {
+		this.delayedExecutor = CompletableFuture.delayedExecutor(maxLatency.toNanos(), TimeUnit.NANOSECONDS);
+		this.maxBatchSize = maxBatchSize;
+		this.onChangesAvailable = () -> {
+			boolean signalAgain;
+			do {
+				final ModelTokensChangedEvent event;
+				synchronized (this) {
+					event = takeChanges();
+				}
+				try {
+					if (event != null) {
+						listener.modelTokensChanged(event);
+					}
+				} finally {
+					// re-enable signaling only now, so the listener is never invoked concurrently
+					synchronized (this) {
+						signaled = false;
+						signalAgain = scheduleSignal();
+					}
+				}
+			} while (signalAgain);
+		};
+	}
+
+	/**
+	 * Creates a coalescer that signals the availability of changes which then have to be pulled via
+	 * {@link #pollChanges()}.
+	 *
+	 * @param maxLatency the maximum time a change is held back before the consumer is signaled
+	 * @param maxBatchSize the number of changed lines that causes the consumer to be signaled without further delay
+	 * @param onChangesAvailable invoked when changes are available, either by the thread delivering the event that
+	 *        exceeded the max batch size or by a background thread. Is not invoked again before
+	 *        {@link #pollChanges()} was called.
+	 */
+	public ModelTokensChangedEventCoalescer(final Duration maxLatency, final int maxBatchSize,
+		final Runnable onChangesAvailable) {
+		this.delayedExecutor = CompletableFuture.delayedExecutor(maxLatency.toNanos(), TimeUnit.NANOSECONDS);
+		this.maxBatchSize = maxBatchSize;
+		this.onChangesAvailable = onChangesAvailable;
+	}
+
+	@Override
+	public void modelTokensChanged(final ModelTokensChangedEvent event) {
+		synchronized (this) {
+			if (model != event.model) {
+				model = event.model;
+				pendingRanges.clear();
+				pendingLineCount = 0;
+			}
+
+			for (final Range range : event.ranges) {
+				addRange(range.fromLineNumber, range.toLineNumber);
+			}
+
+			if (!scheduleSignal())
+				return;
+		}
+		onChangesAvailable.run();
+	}
+
+	/**
+	 * Schedules a delayed signal or, if the max batch size is reached, marks the consumer as signaled. Must be called
+	 * while holding the lock of this instance.
+	 *
+	 * @return true if the consumer has to be signaled immediately
+	 */
+	private boolean scheduleSignal() {
+		if (signaled || pendingRanges.isEmpty())
+			return false;
+
+		if (pendingLineCount < maxBatchSize) {
+			if (!signalScheduled) {
+				signalScheduled = true;
+				delayedExecutor.execute(this::onSignalDelayElapsed);
+			}
+			return false;
+		}
+		signaled = true;
+		return true;
+	}
+
+	private void onSignalDelayElapsed() {
+		synchronized (this) {
+			signalScheduled = false;
+			if (signaled || pendingRanges.isEmpty())
+				return;
+			signaled = true;
+		}
+		onChangesAvailable.run();
+	}
+
+	/**
+	 * Merges the given range with the pending ranges it overlaps or touches.
+	 */
+	private void addRange(int fromLineNumber, int toLineNumber) {
+		final var floor = pendingRanges.floorEntry(fromLineNumber);
+		if (floor != null && floor.getValue() >= fromLineNumber - 1) {
+			fromLineNumber = floor.getKey();
+			toLineNumber = Math.max(toLineNumber, floor.getValue());
+		}
+
+		Map.Entry<Integer, Integer> next;
+		while ((next = pendingRanges.ceilingEntry(fromLineNumber)) != null && next.getKey() <= toLineNumber + 1) {
+			toLineNumber = Math.max(toLineNumber, next.getValue());
+			pendingLineCount -= next.getValue() - next.getKey() + 1;
+			pendingRanges.remove(next.getKey());
+		}
+
+		pendingRanges.put(fromLineNumber, toLineNumber);
+		pendingLineCount += toLineNumber - fromLineNumber + 1;
+	}
+
+	/**
+	 * Returns the changes received since the last call and re-enables signaling.
+	 *
+	 * @return an event with the merged line ranges in ascending order or null if no changes are pending
+	 */
+	@Nullable
+	public synchronized ModelTokensChangedEvent pollChanges() {
+		signaled = false;
+		return takeChanges();
+	}
+
+	/**
+	 * Must be called while holding the lock of this instance.
+	 */
+	@Nullable
+	private ModelTokensChangedEvent takeChanges() {
+		final var model = this.model;
+		if (model == null || pendingRanges.isEmpty())
+			return null;
+
+		final var ranges = new ArrayList<Range>(pendingRanges.size());
+		pendingRanges.forEach((from, to) -> ranges.add(new Range(from, to)));
+		pendingRanges.clear();
+		pendingLineCount = 0;
+		return new ModelTokensChangedEvent(ranges, model);
+	}
+}
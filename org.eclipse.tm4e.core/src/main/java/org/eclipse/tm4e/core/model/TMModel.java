@@ -16,19 +16,34 @@
 import static org.eclipse.tm4e.core.internal.utils.NullSafetyHelper.*;
 
 import java.lang.System.Logger;
-import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tm4e.core.grammar.IGrammar;
+import org.eclipse.tm4e.core.grammar.IStateStack;
+import org.eclipse.tm4e.core.grammar.IToken;
+import org.eclipse.tm4e.core.grammar.ITokenizeLineResult;
 import org.eclipse.tm4e.core.internal.utils.StringUtils;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
 /**
  * TextMate model class.
  *
@@ -39,6 +54,30 @@ public class TMModel implements ITMModel {
 
 	private static final Logger LOGGER = System.getLogger(TMModel.class.getName());
 
+	/**
+	 * Executor used by all models that are not created with a custom executor. It runs up to one tokenizer task per
+	 * available core and prefers tasks of models with a higher {@link TokenizationPriority}.
+	 */
+	private static final Executor SHARED_EXECUTOR = createSharedExecutor();
+	private static final AtomicLong TASK_SEQUENCE = new AtomicLong();
+
+	private static Executor createSharedExecutor() {
+		final int threads = Runtime.getRuntime().availableProcessors();
+		final var threadCount = new AtomicInteger();
+		final var executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+			new PriorityBlockingQueue<>(), runnable -> {
+				final var thread = new Thread(runnable, TMModel.class.getName() + "-" + threadCount.incrementAndGet());
+				thread.setPriority(Thread.MIN_PRIORITY);
+				thread.setDaemon(true);
+				return thread;
+			});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static final int VISIBLE_RANGE_LOOKAHEAD = 20; // number of lines below the visible range to tokenize early
+	private static final int PARALLEL_MIN_CHUNK_SIZE = 1_000; // min number of lines per chunk tokenized in parallel
+
 	/** The TextMate grammar to use to parse for each lines of the document the TextMate tokens. **/
 	@Nullable
 	private IGrammar grammar;
@@ -49,96 +88,535 @@ public class TMModel implements ITMModel {
 	@Nullable
 	private TMTokenization tokenizer;
 
-	/** The background thread. */
+	private final Executor executor;
+	private volatile TokenizationPriority priority = TokenizationPriority.NORMAL;
+	private volatile TokenizationTimeBudget timeBudget = TokenizationTimeBudget.DEFAULT;
+
+	/**
+	 * exponential moving average of the time in nanoseconds it took to revalidate a line, used to end time slices
+	 * before they are exceeded. Only accessed by the one running {@link TokenizerTask} of this model.
+	 */
+	private long avgLineRevalidationNanos;
+
+	/** true if a grammar is set and listeners are registered, i.e. lines shall be tokenized in background */
+	private volatile boolean tokenizerEnabled;
+
+	/** true if a {@link TokenizerTask} of this model is queued or running */
+	private final AtomicBoolean tokenizerScheduled = new AtomicBoolean();
+
+	/**
+	 * true if the results of a parallel tokenization were discarded because the lines were modified meanwhile. The
+	 * remaining invalid lines are then revalidated sequentially, since while the user keeps typing parallel runs would
+	 * be discarded over and over again. Reset once no invalid lines are queued anymore.
+	 */
+	private volatile boolean parallelTokenizationDiscarded;
+
+	private final AtomicInteger parallelTokenizationCount = new AtomicInteger();
+
+	/** 0-based indexes of the first and last line visible in the UI */
+	private record VisibleRange(int fromLineIndex, int toLineIndex) {
+	}
+
 	@Nullable
-	private volatile TokenizerThread fThread;
+	private volatile VisibleRange visibleRange;
+
+	/** true if the lines of the {@link #visibleRange} shall be tokenized before the other invalid lines */
+	private final AtomicBoolean visibleRangeRequested = new AtomicBoolean();
 
 	private final AbstractModelLines modelLines;
+	private final TokenFormat tokenFormat;
+	private final TokenTypeDictionary tokenTypes = new TokenTypeDictionary();
+
+	/**
+	 * Canonicalizes structurally equal line states, so lines with the same state, e.g. all lines of a method body,
+	 * share one instance and comparing the states of consecutive lines is mostly a reference check
+	 */
+	private final Interner<IStateStack> stateInterner = Interners.newWeakInterner();
 	private final PriorityBlockingQueue<Integer> invalidLines = new PriorityBlockingQueue<>();
 
 	public TMModel(final AbstractModelLines lines) {
+		this(lines, SHARED_EXECUTOR);
+	}
+
+	/**
+	 * @param executor the executor to run the background tokenization of this model with. The work is submitted in
+	 *        short running tasks, so an executor shared by multiple models interleaves their tokenization.
+	 */
+	public TMModel(final AbstractModelLines lines, final Executor executor) {
+		this(lines, executor, TokenFormat.TYPES);
+	}
+
+	/**
+	 * @param executor the executor to run the background tokenization of this model with
+	 * @param tokenFormat the format in which the tokens of the lines are stored, see {@link #getLineTokens(int)} and
+	 *        {@link #getLineEncodedTokens(int)}
+	 */
+	public TMModel(final AbstractModelLines lines, final Executor executor, final TokenFormat tokenFormat) {
+		this.executor = executor;
+		this.tokenFormat = tokenFormat;
 		modelLines = lines;
 		modelLines.setModel(this);
 		invalidateLine(0);
 	}
 
 	/**
-	 * The {@link TokenizerThread} continuously runs tokenizing in background on the lines found in
-	 * {@link TMModel#modelLines}.
+	 * The {@link TokenizerTask} tokenizes in background the lines found in {@link TMModel#modelLines} that are marked
+	 * as invalid.
 	 *
 	 * The {@link TMModel#modelLines} are expected to be accessed through {@link TMModel#getLines()} and manipulated by
-	 * the UI part to inform of needs to (re)tokenize area, then the {@link TokenizerThread} processes them and emits
+	 * the UI part to inform of needs to (re)tokenize area, then the {@link TokenizerTask} processes them and emits
 	 * events through the model.
 	 *
+	 * Each task processes at most one batch of lines and then re-submits itself if more invalid lines are queued.
+	 * This way models sharing the same executor get their turn.
+	 *
 	 * UI elements are supposed to subscribe and react to the events with
 	 * {@link TMModel#addModelTokensChangedListener(IModelTokensChangedListener)}.
 	 */
-	private final class TokenizerThread extends Thread {
+	private final class TokenizerTask extends PrioritizedTask {
 
-		/**
-		 * Creates a new background thread. The thread runs with minimal priority.
-		 *
-		 * @param name the thread's name
-		 */
-		TokenizerThread(final String name) {
-			super(name);
-			setPriority(Thread.MIN_PRIORITY);
-			setDaemon(true);
+		@Override
+		public void run() {
+			boolean continuesAsync = false;
+			try {
+				continuesAsync = processNextInvalidLine();
+			} finally {
+				if (!continuesAsync) {
+					onTokenizerTaskDone();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Base class of the tasks submitted to the executor. Tasks of models with a higher priority are run first by the
+	 * shared executor, otherwise tasks are run in the order they were created.
+	 */
+	private abstract class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+		final TokenizationPriority priority = TMModel.this.priority;
+		final long sequence = TASK_SEQUENCE.incrementAndGet();
+
+		@Override
+		public int compareTo(final PrioritizedTask other) {
+			final int result = other.priority.compareTo(priority); // higher priority first
+			return result == 0 ? Long.compare(sequence, other.sequence) : result;
+		}
+	}
+
+	private void onTokenizerTaskDone() {
+		tokenizerScheduled.set(false);
+		if (!invalidLines.isEmpty() || visibleRangeRequested.get()) {
+			scheduleTokenizer();
+		}
+	}
+
+	/**
+	 * @return true if the processing continues asynchronously and {@link #onTokenizerTaskDone()} will be called
+	 *         once it is finished
+	 */
+	private boolean processNextInvalidLine() {
+		if (tokenizerEnabled && visibleRangeRequested.getAndSet(false)) {
+			final var visibleRange = this.visibleRange;
+			if (visibleRange != null && tokenizeVisibleRange(visibleRange))
+				return false;
+		}
+
+		while (tokenizerEnabled) {
+			final Integer lineIndexToProcess = invalidLines.poll();
+			if (lineIndexToProcess == null) {
+				parallelTokenizationDiscarded = false;
+				return false;
+			}
+
+			// skip if the queued line is not invalid anymore
+			final var modelLine = modelLines.getOrNull(lineIndexToProcess);
+			if (modelLine == null || !modelLine.isInvalid)
+				continue;
+
+			try {
+				if (tokenizeInParallel(lineIndexToProcess))
+					return true;
+				revalidateTokens(lineIndexToProcess);
+			} catch (final Exception ex) {
+				LOGGER.log(ERROR, ex.getMessage(), ex);
+				invalidateLine(lineIndexToProcess);
+			}
+			return false;
+		}
+		return false;
+	}
+
+	/**
+	 * Lines tokenized by a {@link ChunkTask}.
+	 */
+	private static final class TokenizedChunk {
+		final int fromLineIndex;
+		final int toLineIndex; // exclusive
+		final IStateStack startState;
+		final List<IStateStack> startStates = new ArrayList<>();
+		/** the lines in {@link TokenFormat#ENCODED} mode, otherwise filled by {@link TMModel#decodeChunks} */
+		final List<int[]> tokens = new ArrayList<>();
+		/** the texts and the not yet decoded tokens of the lines in {@link TokenFormat#TYPES} mode */
+		final List<String> lineTexts = new ArrayList<>();
+		final List<ITokenizeLineResult<IToken[]>> lineResults = new ArrayList<>();
+		@Nullable
+		IStateStack endState;
+
+		TokenizedChunk(final int fromLineIndex, final int toLineIndex, final IStateStack startState) {
+			this.fromLineIndex = fromLineIndex;
+			this.toLineIndex = toLineIndex;
+			this.startState = startState;
+		}
+	}
+
+	private final class ChunkTask extends PrioritizedTask {
+
+		final TokenizedChunk chunk;
+		final IGrammar grammar;
+		final CompletableFuture<Void> result = new CompletableFuture<>();
+
+		ChunkTask(final TokenizedChunk chunk, final IGrammar grammar) {
+			this.chunk = chunk;
+			this.grammar = grammar;
 		}
 
 		@Override
 		public void run() {
-			while (!isInterrupted() && fThread == this) {
-				try {
-					final int lineIndexToProcess = invalidLines.take();
+			try {
+				IStateStack state = chunk.startState;
+				for (int lineIndex = chunk.fromLineIndex; lineIndex < chunk.toLineIndex; lineIndex++) {
+					if (!tokenizerEnabled) {
+						result.cancel(false);
+						return;
+					}
+					// the token types are decoded later in the order of the lines, see TMTokenization#decode
+					final var lineText = modelLines.getLineText(lineIndex);
+					final var timeLimit = timeBudget.maxTimePerLine();
+					final ITokenizeLineResult<?> r;
+					if (tokenFormat == TokenFormat.ENCODED) {
+						final var encodedResult = grammar.tokenizeLine2(lineText, state, timeLimit);
+						chunk.tokens.add(encodedResult.getTokens());
+						r = encodedResult;
+					} else {
+						final var typesResult = grammar.tokenizeLine(lineText, state, timeLimit);
+						chunk.lineTexts.add(lineText);
+						chunk.lineResults.add(typesResult);
+						r = typesResult;
+					}
+					chunk.startStates.add(state);
+					// Use the line's starting state as end state in case of incomplete tokenization
+					state = r.isStoppedEarly() ? state : stateInterner.intern(r.getRuleStack());
+				}
+				chunk.endState = state;
+				result.complete(null);
+			} catch (final Exception ex) {
+				result.completeExceptionally(ex);
+			}
+		}
+	}
 
-					// skip if the queued line is not invalid anymore
-					final var modelLine = modelLines.getOrNull(lineIndexToProcess);
-					if (modelLine == null || !modelLine.isInvalid)
-						continue;
+	/**
+	 * Tokenizes the lines from the given line to the end of the document in parallel if none of them is up-to-date,
+	 * e.g. after a large document was opened.
+	 * <p>
+	 * The lines are split into chunks. Except for the first chunk, the exact start state of a chunk is not known
+	 * in advance, so the last known start state of the chunk's first line is used as guess. Once all chunks are
+	 * tokenized, the end state of each chunk is compared with the guessed start state of the next chunk. If they
+	 * differ, the first line of the next chunk is invalidated and the regular tokenization corrects the following
+	 * lines until the states match again.
+	 * <p>
+	 * If the lines are modified while the chunks are tokenized, the results are discarded and the lines are
+	 * revalidated sequentially until no invalid lines are left.
+	 *
+	 * @return true if the parallel tokenization was started
+	 */
+	private boolean tokenizeInParallel(final int startLineIndex) {
+		if (parallelTokenizationDiscarded)
+			return false;
+
+		final int lineCount = modelLines.getNumberOfLines() - startLineIndex;
+		final int chunkCount = Math.min(getParallelism(), lineCount / PARALLEL_MIN_CHUNK_SIZE);
+		if (chunkCount < 2)
+			return false;
+
+		// otherwise the sequential tokenization stops early at the first line whose start state is still valid
+		final var grammar = this.grammar;
+		if (grammar == null || !modelLines.isInvalidFrom(startLineIndex))
+			return false;
+
+		parallelTokenizationCount.incrementAndGet();
+		final int modificationCount = modelLines.getModificationCount();
+		final int chunkSize = (lineCount + chunkCount - 1) / chunkCount;
+		final var chunks = new ArrayList<TokenizedChunk>(chunkCount);
+		final var results = new CompletableFuture<?>[chunkCount];
+		for (int i = 0; i < chunkCount; i++) {
+			final int fromLineIndex = startLineIndex + i * chunkSize;
+			final int toLineIndex = Math.min(fromLineIndex + chunkSize, startLineIndex + lineCount);
+			final var chunk = new TokenizedChunk(fromLineIndex, toLineIndex, modelLines.get(fromLineIndex).startState);
+			final var task = new ChunkTask(chunk, grammar);
+			chunks.add(chunk);
+			results[i] = task.result;
+			try {
+				executor.execute(task);
+			} catch (final RejectedExecutionException ex) {
+				task.result.completeExceptionally(ex);
+			}
+		}
 
-					try {
-						revalidateTokens(lineIndexToProcess);
-					} catch (final Exception ex) {
+		CompletableFuture.allOf(results).whenComplete((result, ex) -> {
+			try {
+				final var eventBuilder = new ModelTokensChangedEventBuilder(this);
+				final var outdatedLineIndexes = new ArrayList<Integer>();
+				// applied under the lock of the lines, so they cannot be modified between the check and the update
+				if (ex == null && decodeChunks(chunks) && modelLines.runIfNotModifiedSince(modificationCount,
+					() -> applyChunks(chunks, eventBuilder, outdatedLineIndexes))) {
+					// emitted outside the lock, so listeners cannot block modifications of the lines
+					final var event = eventBuilder.build();
+					if (event != null) {
+						emit(event);
+					}
+					outdatedLineIndexes.forEach(this::invalidateLine);
+				} else {
+					// chunks are cancelled if the tokenizer was stopped meanwhile
+					if (ex != null && !(ex.getCause() instanceof CancellationException)) {
 						LOGGER.log(ERROR, ex.getMessage(), ex);
-						invalidateLine(lineIndexToProcess);
 					}
-				} catch (final InterruptedException e) {
-					interrupt();
+					// fall back to sequential tokenization
+					parallelTokenizationDiscarded = true;
+					invalidateLine(startLineIndex);
+				}
+			} finally {
+				onTokenizerTaskDone();
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * @return the number of chunks the executor can tokenize at the same time
+	 */
+	private int getParallelism() {
+		if (executor instanceof final ThreadPoolExecutor threadPool)
+			return threadPool.getCorePoolSize();
+		if (executor instanceof final ForkJoinPool forkJoinPool)
+			return forkJoinPool.getParallelism();
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * @return the number of times lines were tokenized in parallel, for testing
+	 */
+	int getParallelTokenizationCount() {
+		return parallelTokenizationCount.get();
+	}
+
+	/**
+	 * Decodes the token types of the chunks in {@link TokenFormat#TYPES} mode with the model's tokenizer, in the
+	 * order of the lines, so they match the types of a sequential tokenization.
+	 *
+	 * @return false if the grammar was changed meanwhile
+	 */
+	private boolean decodeChunks(final List<TokenizedChunk> chunks) {
+		if (tokenFormat == TokenFormat.ENCODED)
+			return true;
+
+		final var tokenizer = this.tokenizer;
+		if (tokenizer == null)
+			return false;
+		for (final var chunk : chunks) {
+			for (int i = 0; i < chunk.lineResults.size(); i++) {
+				chunk.tokens.add(toTokens(tokenizer.decode(chunk.lineTexts.get(i), chunk.lineResults.get(i), 0)));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param outdatedLineIndexes receives the first lines of the chunks whose guessed start state was wrong
+	 */
+	private void applyChunks(final List<TokenizedChunk> chunks, final ModelTokensChangedEventBuilder eventBuilder,
+		final List<Integer> outdatedLineIndexes) {
+		IStateStack endStateOfPreviousChunk = null;
+		for (final var chunk : chunks) {
+			// validate the guessed start state
+			final boolean isStartStateOutdated = endStateOfPreviousChunk != null
+				&& !chunk.startState.equals(endStateOfPreviousChunk);
+			for (int i = 0; i < chunk.tokens.size(); i++) {
+				final int lineIndex = chunk.fromLineIndex + i;
+				final var modelLine = modelLines.getOrNull(lineIndex);
+				if (modelLine == null)
+					return;
+				modelLine.tokens = chunk.tokens.get(i);
+				eventBuilder.registerChangedTokens(lineIndex + 1);
+				if (i == 0 && isStartStateOutdated) {
+					// the following lines are corrected by the regular tokenization until the states match again
+					modelLine.startState = castNonNull(endStateOfPreviousChunk);
+					outdatedLineIndexes.add(lineIndex);
+				} else {
+					modelLine.startState = chunk.startStates.get(i);
+					modelLine.isInvalid = false;
 				}
 			}
+			endStateOfPreviousChunk = chunk.endState;
+		}
+	}
+
+	/**
+	 * @param tokens the tokens of the line in the model's {@link #tokenFormat}
+	 */
+	private record TokenizedLine(int[] tokens, IStateStack endState) {
+	}
+
+	/**
+	 * Tokenizes the given line. If the time limit is reached the rest of the line is treated as one default token,
+	 * respectively in {@link TokenFormat#ENCODED} mode as part of the last token.
+	 */
+	private TokenizedLine tokenizeLine(final TMTokenization tokenizer, final int lineIndex,
+		final IStateStack startState) throws Exception {
+		final var lineText = modelLines.getLineText(lineIndex);
+		if (tokenFormat == TokenFormat.ENCODED) {
+			final var r = tokenizer.tokenizeEncoded(lineText, startState, timeBudget.maxTimePerLine());
+			// Use the line's starting state as end state in case of incomplete tokenization
+			return new TokenizedLine(r.tokens, r.stoppedEarly ? startState : stateInterner.intern(r.endState));
 		}
 
-		private final int MAX_LOOP_TIME = 200; // process follow-up lines until this limit is reached
-		private final Duration MAX_TIME_PER_LINE = Duration.ofSeconds(1); // max time a single line can be processed
+		final var r = tokenizer.tokenize(lineText, startState, 0, timeBudget.maxTimePerLine());
+		// Use the line's starting state as end state in case of incomplete tokenization
+		return new TokenizedLine(toTokens(r), r.stoppedEarly ? startState : stateInterner.intern(r.endState));
+	}
 
-		/**
-		 * @param startLineIndex 0-based
-		 */
-		private void revalidateTokens(final int startLineIndex) {
-			buildAndEmitEvent(eventBuilder -> {
-				int lineIndex = startLineIndex;
-				final long startTime = System.currentTimeMillis();
-				while (lineIndex < modelLines.getNumberOfLines()) {
-					switch (updateTokensOfLine(eventBuilder, lineIndex, MAX_TIME_PER_LINE)) {
-					case DONE:
-						return;
-					case UPDATE_FAILED:
-						// mark the current line as invalid and add it to the end of the queue
+	private int[] toTokens(final TokenizationResult r) {
+		if (r.stoppedEarly) {
+			// treat the rest of the line as one default token
+			r.tokens.add(new TMToken(r.actualStopOffset, ""));
+		}
+		return tokenTypes.encode(r.tokens);
+	}
+
+	/**
+	 * Revalidates lines in the background within {@link TokenizationTimeBudget#backgroundSlice()}.
+	 *
+	 * @param startLineIndex 0-based
+	 */
+	private void revalidateTokens(final int startLineIndex) {
+		revalidateTokens(startLineIndex, Integer.MAX_VALUE, false);
+	}
+
+	/**
+	 * @param startLineIndex 0-based
+	 * @param toLineIndex 0-based index of the last line to revalidate, outdated lines below are queued
+	 * @param foreground true if the lines of the visible range are revalidated. The
+	 *        {@link TokenizationTimeBudget#foregroundSlice()} applies and if it is exceeded, the rest of the visible
+	 *        range is revalidated by the next {@link TokenizerTask} first.
+	 */
+	private void revalidateTokens(final int startLineIndex, final int toLineIndex, final boolean foreground) {
+		final var timeBudget = this.timeBudget;
+		final long sliceNanos = (foreground ? timeBudget.foregroundSlice() : timeBudget.backgroundSlice()).toNanos();
+		buildAndEmitEvent(eventBuilder -> {
+			int lineIndex = startLineIndex;
+			final long startTime = System.nanoTime();
+			while (lineIndex < modelLines.getNumberOfLines()) {
+				final long lineStartTime = System.nanoTime();
+				final var result = updateTokensOfLine(eventBuilder, lineIndex);
+				final long now = System.nanoTime();
+				avgLineRevalidationNanos += (now - lineStartTime - avgLineRevalidationNanos) / 8;
+
+				switch (result) {
+				case DONE:
+					return;
+				case UPDATE_FAILED:
+					// mark the current line as invalid and add it to the end of the queue
+					invalidateLine(lineIndex);
+					return;
+				case NEXT_LINE_IS_OUTDATED:
+					lineIndex++;
+					if (lineIndex > toLineIndex) {
 						invalidateLine(lineIndex);
 						return;
-					case NEXT_LINE_IS_OUTDATED:
-						if (System.currentTimeMillis() - startTime >= MAX_LOOP_TIME) {
-							// mark the next line as invalid and add it to the end of the queue
-							invalidateLine(lineIndex + 1);
-							return;
+					}
+					// stop if the next line is not expected to fit into the time slice
+					if (now - startTime + avgLineRevalidationNanos > sliceNanos) {
+						if (foreground) {
+							visibleRangeRequested.set(true);
 						}
-						lineIndex++;
-						break;
+						// mark the next line as invalid and add it to the end of the queue
+						invalidateLine(lineIndex);
+						return;
+					}
+					if (!foreground && visibleRangeRequested.get()) {
+						invalidateLine(lineIndex);
+						return;
 					}
+					break;
 				}
-			});
+			}
+		});
+	}
+
+	/**
+	 * Tokenizes the invalid lines of the visible range (plus a few lines below) ahead of the lines above it.
+	 * <p>
+	 * If the line preceding the first invalid visible line is up-to-date, its end state is known and the lines are
+	 * revalidated as usual. Otherwise the exact start state is not known yet, so the lines are tokenized speculatively
+	 * starting with the line's last known start state. Speculatively tokenized lines remain marked as invalid and
+	 * are corrected once the background tokenization reaches them with the exact start state.
+	 *
+	 * @return true if any lines were tokenized
+	 */
+	private boolean tokenizeVisibleRange(final VisibleRange visibleRange) {
+		final int toLineIndex = Math.min(visibleRange.toLineIndex + VISIBLE_RANGE_LOOKAHEAD,
+			modelLines.getNumberOfLines() - 1);
+
+		int firstInvalidLineIndex = -1;
+		for (int i = Math.max(0, visibleRange.fromLineIndex); i <= toLineIndex; i++) {
+			final var modelLine = modelLines.getOrNull(i);
+			if (modelLine != null && modelLine.isInvalid) {
+				firstInvalidLineIndex = i;
+				break;
+			}
 		}
+		if (firstInvalidLineIndex == -1)
+			return false;
+
+		final var previousModelLine = modelLines.getOrNull(firstInvalidLineIndex - 1);
+		if (previousModelLine == null || !previousModelLine.isInvalid) {
+			revalidateTokens(firstInvalidLineIndex, toLineIndex, true);
+			return true;
+		}
+
+		final int startLineIndex = firstInvalidLineIndex;
+		buildAndEmitEvent(eventBuilder -> {
+			IStateStack state = null;
+			for (int lineIndex = startLineIndex; lineIndex <= toLineIndex; lineIndex++) {
+				final var modelLine = modelLines.getOrNull(lineIndex);
+				if (modelLine == null)
+					return;
+
+				if (!modelLine.isInvalid) {
+					state = null; // the next line's start state is exact again
+					continue;
+				}
+
+				if (state == null) {
+					state = modelLine.startState;
+				} else {
+					modelLine.startState = state;
+				}
+
+				final TokenizedLine r;
+				try {
+					r = tokenizeLine(castNonNull(tokenizer), lineIndex, state);
+				} catch (final Exception ex) {
+					LOGGER.log(ERROR, ex.toString());
+					return;
+				}
+				modelLine.tokens = r.tokens;
+				eventBuilder.registerChangedTokens(lineIndex + 1);
+				state = r.endState;
+			}
+		});
+		return true;
 	}
 
 	private enum UpdateTokensOfLineResult {
@@ -151,7 +629,7 @@ private enum UpdateTokensOfLineResult {
 	 * @param lineIndex 0-based
 	 */
 	private UpdateTokensOfLineResult updateTokensOfLine(final ModelTokensChangedEventBuilder eventBuilder,
-		final int lineIndex, final Duration timeLimit) {
+		final int lineIndex) {
 
 		final var modelLine = modelLines.getOrNull(lineIndex);
 		if (modelLine == null) {
@@ -161,23 +639,14 @@ private UpdateTokensOfLineResult updateTokensOfLine(final ModelTokensChangedEven
 		/*
 		 * (re-)tokenize the requested line
 		 */
-		final TokenizationResult r;
-		final String lineText;
+		final TokenizedLine r;
 		try {
-			lineText = modelLines.getLineText(lineIndex);
-			r = castNonNull(tokenizer).tokenize(lineText, modelLine.startState, 0, timeLimit);
+			r = tokenizeLine(castNonNull(tokenizer), lineIndex, modelLine.startState);
 		} catch (final Exception ex) {
 			LOGGER.log(ERROR, ex.toString());
 			return UpdateTokensOfLineResult.UPDATE_FAILED;
 		}
 
-		if (r.stoppedEarly) {
-			// treat the rest of the line as one default token
-			r.tokens.add(new TMToken(r.actualStopOffset, ""));
-			// Use the line's starting state as end state in case of incomplete tokenization
-			r.endState = modelLine.startState;
-		}
-
 		modelLine.tokens = r.tokens;
 		eventBuilder.registerChangedTokens(lineIndex + 1);
 		modelLine.isInvalid = false;
@@ -211,14 +680,14 @@ public void setGrammar(final IGrammar grammar) {
 			this.grammar = grammar;
 			final var tokenizer = this.tokenizer = new TMTokenization(grammar);
 			modelLines.get(0).startState = tokenizer.getInitialState();
-			startTokenizerThread();
+			startTokenizer();
 		}
 	}
 
 	@Override
 	public synchronized void addModelTokensChangedListener(final IModelTokensChangedListener listener) {
 		listeners.add(listener);
-		startTokenizerThread();
+		startTokenizer();
 	}
 
 	@Override
@@ -227,38 +696,66 @@ public synchronized void removeModelTokensChangedListener(final IModelTokensChan
 
 		if (listeners.isEmpty()) {
 			// no need to keep tokenizing if no-one cares
-			stopTokenizerThread();
+			stopTokenizer();
 		}
 	}
 
 	@Override
 	public void dispose() {
-		stopTokenizerThread();
+		stopTokenizer();
 		modelLines.dispose();
 	}
 
-	private synchronized void startTokenizerThread() {
+	private synchronized void startTokenizer() {
 		if (tokenizer != null && !listeners.isEmpty()) {
-			var fThread = this.fThread;
-			if (fThread == null || fThread.isInterrupted()) {
-				fThread = this.fThread = new TokenizerThread(getClass().getName());
-			}
-			if (!fThread.isAlive()) {
-				fThread.start();
-			}
+			tokenizerEnabled = true;
+			scheduleTokenizer();
 		}
 	}
 
+	private synchronized void stopTokenizer() {
+		tokenizerEnabled = false;
+	}
+
 	/**
-	 * Interrupt the thread if running.
+	 * Submits a {@link TokenizerTask} to the executor unless one is already queued or running.
 	 */
-	private synchronized void stopTokenizerThread() {
-		final var fThread = this.fThread;
-		if (fThread == null) {
-			return;
+	private void scheduleTokenizer() {
+		if (tokenizerEnabled && tokenizerScheduled.compareAndSet(false, true)) {
+			try {
+				executor.execute(new TokenizerTask());
+			} catch (final RejectedExecutionException ex) {
+				tokenizerScheduled.set(false);
+				LOGGER.log(ERROR, ex.getMessage(), ex);
+			}
 		}
-		fThread.interrupt();
-		this.fThread = null;
+	}
+
+	@Override
+	public void setVisibleRange(final int fromLineIndex, final int toLineIndex) {
+		visibleRange = new VisibleRange(fromLineIndex, toLineIndex);
+		visibleRangeRequested.set(true);
+		scheduleTokenizer();
+	}
+
+	@Override
+	public TokenizationPriority getTokenizationPriority() {
+		return priority;
+	}
+
+	@Override
+	public void setTokenizationPriority(final TokenizationPriority priority) {
+		this.priority = priority;
+	}
+
+	@Override
+	public TokenizationTimeBudget getTokenizationTimeBudget() {
+		return timeBudget;
+	}
+
+	@Override
+	public void setTokenizationTimeBudget(final TokenizationTimeBudget timeBudget) {
+		this.timeBudget = timeBudget;
 	}
 
 	private void buildAndEmitEvent(final Consumer<ModelTokensChangedEventBuilder> callback) {
@@ -281,10 +778,26 @@ private void emit(final ModelTokensChangedEvent e) {
 	@Override
 	@Nullable
 	public List<TMToken> getLineTokens(final int lineIndex) {
+		if (tokenFormat != TokenFormat.TYPES)
+			throw new IllegalStateException("Tokens of model are stored in format " + tokenFormat);
+		final var modelLine = modelLines.getOrNull(lineIndex);
+		return modelLine == null ? null : tokenTypes.decode(modelLine.tokens);
+	}
+
+	@Override
+	@Nullable
+	public int[] getLineEncodedTokens(final int lineIndex) {
+		if (tokenFormat != TokenFormat.ENCODED)
+			throw new IllegalStateException("Tokens of model are stored in format " + tokenFormat);
 		final var modelLine = modelLines.getOrNull(lineIndex);
 		return modelLine == null ? null : modelLine.tokens;
 	}
 
+	@Override
+	public TokenFormat getTokenFormat() {
+		return tokenFormat;
+	}
+
 	public int getNumberOfLines() {
 		return modelLines.getNumberOfLines();
 	}
@@ -297,6 +810,7 @@ void invalidateLine(final int lineIndex) {
 		if (modelLine != null) {
 			modelLine.isInvalid = true;
 			invalidLines.add(lineIndex);
+			scheduleTokenizer();
 		}
 	}
 
@@ -18,16 +18,16 @@
 
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.eclipse.jdt.annotation.NonNull;
-import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.tm4e.core.grammar.IGrammar;
 import org.eclipse.tm4e.core.grammar.IStateStack;
+import org.eclipse.tm4e.core.grammar.IToken;
+import org.eclipse.tm4e.core.grammar.ITokenizeLineResult;
 import org.eclipse.tm4e.core.internal.grammar.StateStack;
 
 import com.google.common.base.Splitter;
@@ -69,7 +69,17 @@ public TokenizationResult tokenize(final String line,
 		@Nullable final Duration timeLimit) {
 
 		final int offsetDelta = offsetDeltaOrNull == null ? 0 : offsetDeltaOrNull;
-		final var tokenizationResult = _grammar.tokenizeLine(line, state, timeLimit);
+		return decode(line, _grammar.tokenizeLine(line, state, timeLimit), offsetDelta);
+	}
+
+	/**
+	 * Converts the tokens of the given line, that may have been tokenized by another thread, into {@link TMToken}s.
+	 * <p>
+	 * The token types depend on the order in which their scopes are seen first, so to get the same types as a
+	 * sequential tokenization, the results must be decoded in the order of the lines.
+	 */
+	TokenizationResult decode(final String line, final ITokenizeLineResult<IToken[]> tokenizationResult,
+		final int offsetDelta) {
 		final var tokens = tokenizationResult.getTokens();
 
 		// Create the result early and fill in the tokens later
@@ -100,42 +110,46 @@ public TokenizationResult tokenize(final String line,
 			tokenizationResult.isStoppedEarly());
 	}
 
-	private String decodeTextMateToken(final DecodeMap decodeMap, final List<String> scopes) {
-		final var prevTokenScopes = decodeMap.prevToken.scopes;
-		final int prevTokenScopesLength = prevTokenScopes.size();
-		final var prevTokenScopeTokensMaps = decodeMap.prevToken.scopeTokensMaps;
+	@Override
+	public EncodedTokenizationResult tokenizeEncoded(final String line, @Nullable final IStateStack state,
+		@Nullable final Duration timeLimit) {
+		final var tokenizationResult = _grammar.tokenizeLine2(line, state, timeLimit);
+		return new EncodedTokenizationResult(
+			tokenizationResult.getTokens(),
+			tokenizationResult.getRuleStack(),
+			tokenizationResult.isStoppedEarly());
+	}
 
-		final var scopeTokensMaps = new LinkedHashMap<Integer, Map<Integer, Boolean>>();
-		Map<Integer, Boolean> prevScopeTokensMaps = new LinkedHashMap<>();
-		boolean sameAsPrev = true;
+	/**
+	 * @return the token type, i.e. the distinct dot separated parts of the given scopes (excluding the root scope)
+	 *         ordered by first appearance
+	 */
+	private String decodeTextMateToken(final DecodeMap decodeMap, final List<String> scopes) {
+		var node = decodeMap.root;
 		for (int level = 1/* deliberately skip scope 0 */; level < scopes.size(); level++) {
-			final String scope = scopes.get(level);
+			node = decodeMap.getChild(node, scopes.get(level));
+		}
+		return node.type;
+	}
 
-			if (sameAsPrev) {
-				if (level < prevTokenScopesLength && prevTokenScopes.get(level).equals(scope)) {
-					prevScopeTokensMaps = prevTokenScopeTokensMaps.get(level);
-					scopeTokensMaps.put(level, prevScopeTokensMaps);
-					continue;
-				}
-				sameAsPrev = false;
-			}
+	/**
+	 * Node of the trie of scope paths seen so far. Each node holds the decoded token type of its path, so decoding the
+	 * type of a token only requires one map lookup per scope.
+	 */
+	private static final class ScopePathNode {
 
-			final Integer[] tokens = decodeMap.getTokenIds(scope);
-			prevScopeTokensMaps = new LinkedHashMap<>(prevScopeTokensMaps);
-			for (final Integer token : tokens) {
-				prevScopeTokensMaps.put(token, true);
-			}
-			scopeTokensMaps.put(level, prevScopeTokensMaps);
-		}
+		/** ids of the distinct dot separated parts of the scopes of this path, in ascending order */
+		final int[] tokenIds;
 
-		decodeMap.prevToken = new TMTokenDecodeData(scopes, scopeTokensMaps);
-		return decodeMap.getToken(prevScopeTokensMaps);
-	}
+		final String type;
 
-	@NonNullByDefault({})
-	private record TMTokenDecodeData(
-		@NonNull List<String> scopes,
-		@NonNull Map<Integer, Map<Integer, Boolean>> scopeTokensMaps) {
+		@Nullable
+		Map<String /* scope */, ScopePathNode> children;
+
+		ScopePathNode(final int[] tokenIds, final String type) {
+			this.tokenIds = tokenIds;
+			this.type = type;
+		}
 	}
 
 	private static final class DecodeMap {
@@ -143,26 +157,43 @@ private static final class DecodeMap {
 		private static final Splitter BY_DOT_SPLITTER = Splitter.on('.');
 
 		private int lastAssignedId = 0;
-		private final Map<String /* scope */, Integer @Nullable [] /* ids */ > scopeToTokenIds = new LinkedHashMap<>();
-		private final Map<String /* token */, @Nullable Integer /* id */ > tokenToTokenId = new LinkedHashMap<>();
-		private final Map<Integer /* id */, String /* id */ > tokenIdToToken = new LinkedHashMap<>();
-		TMTokenDecodeData prevToken = new TMTokenDecodeData(Collections.emptyList(), new LinkedHashMap<>());
+		private final Map<String /* scope */, int[] /* ids */> scopeToTokenIds = new HashMap<>();
+		private final Map<String /* token */, Integer /* id */> tokenToTokenId = new HashMap<>();
+		private final List<String> tokenIdToToken = new ArrayList<>(List.of("")); // ids start at 1
+		private final Map<String, String> internedTypes = new HashMap<>();
+		final ScopePathNode root = new ScopePathNode(new int[0], "");
+
+		ScopePathNode getChild(final ScopePathNode parent, final String scope) {
+			var children = parent.children;
+			if (children == null) {
+				children = parent.children = new HashMap<>(4);
+			} else {
+				final var child = children.get(scope);
+				if (child != null)
+					return child;
+			}
 
-		Integer[] getTokenIds(final String scope) {
-			Integer[] tokens = this.scopeToTokenIds.get(scope);
+			final int[] tokenIds = mergeTokenIds(parent.tokenIds, getTokenIds(scope));
+			final var child = new ScopePathNode(tokenIds, getType(tokenIds));
+			children.put(scope, child);
+			return child;
+		}
+
+		private int[] getTokenIds(final String scope) {
+			int[] tokens = this.scopeToTokenIds.get(scope);
 			if (tokens != null) {
 				return tokens;
 			}
 			final String[] tmpTokens = BY_DOT_SPLITTER.splitToStream(scope).toArray(String[]::new);
 
-			tokens = new Integer[tmpTokens.length];
+			tokens = new int[tmpTokens.length];
 			for (int i = 0; i < tmpTokens.length; i++) {
 				final String token = tmpTokens[i];
 				Integer tokenId = this.tokenToTokenId.get(token);
 				if (tokenId == null) {
 					tokenId = ++this.lastAssignedId;
 					this.tokenToTokenId.put(token, tokenId);
-					this.tokenIdToToken.put(tokenId, token);
+					this.tokenIdToToken.add(token);
 				}
 				tokens[i] = tokenId;
 			}
@@ -171,21 +202,34 @@ Integer[] getTokenIds(final String scope) {
 			return tokens;
 		}
 
-		String getToken(final Map<Integer, Boolean> tokenMap) {
-			final StringBuilder result = new StringBuilder();
-			boolean isFirst = true;
-			for (int i = 1; i <= this.lastAssignedId; i++) {
-				if (tokenMap.containsKey(i)) {
-					if (isFirst) {
-						isFirst = false;
-						result.append(this.tokenIdToToken.get(i));
-					} else {
-						result.append('.');
-						result.append(this.tokenIdToToken.get(i));
-					}
+		/**
+		 * @param sortedTokenIds distinct ids in ascending order
+		 *
+		 * @return the distinct ids of both arrays in ascending order
+		 */
+		private static int[] mergeTokenIds(final int[] sortedTokenIds, final int[] tokenIds) {
+			final int[] merged = Arrays.copyOf(sortedTokenIds, sortedTokenIds.length + tokenIds.length);
+			System.arraycopy(tokenIds, 0, merged, sortedTokenIds.length, tokenIds.length);
+			Arrays.sort(merged);
+			int count = 0;
+			for (final int tokenId : merged) {
+				if (count == 0 || merged[count - 1] != tokenId) {
+					merged[count++] = tokenId;
+				}
+			}
+			return count == merged.length ? merged : Arrays.copyOf(merged, count);
+		}
+
+		private String getType(final int[] sortedTokenIds) {
+			final var result = new StringBuilder();
+			for (final int tokenId : sortedTokenIds) {
+				if (result.length() > 0) {
+					result.append('.');
 				}
+				result.append(this.tokenIdToToken.get(tokenId));
 			}
-			return result.toString();
+			final var type = result.toString();
+			return internedTypes.computeIfAbsent(type, t -> t);
 		}
 	}
 }
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe dictionary of the token types used by a {@link TMModel} to store the tokens of its lines in a compact
+ * form.
+ * <p>
+ * The tokens of a line are encoded into an <code>int[]</code> of (startIndex, typeId) pairs. Each distinct token type
+ * string is held only once by the dictionary.
+ */
+final class TokenTypeDictionary {
+
+	static final int[] NO_TOKENS = new int[0];
+
+	private final Map<String, Integer> typeIds = new ConcurrentHashMap<>();
+	private volatile String[] types = new String[64];
+	private int typeCount;
+
+	int getTypeId(final String type) {
+		final var typeId = typeIds.get(type);
+		if (typeId != null)
+			return typeId;
+
+		synchronized (this) {
+			return typeIds.computeIfAbsent(type, t -> {
+				var types = this.types;
+				if (typeCount == types.length) {
+					types = Arrays.copyOf(types, typeCount * 2);
+				}
+				types[typeCount] = t;
+				this.types = types; // publish the new type before its id
+				return typeCount++;
+			});
+		}
+	}
+
+	String getType(final int typeId) {
+		return types[typeId];
+	}
+
+	/**
+	 * @return the given tokens as (startIndex, typeId) pairs
+	 */
+	int[] encode(final List<TMToken> tokens) {
+		if (tokens.isEmpty())
+			return NO_TOKENS;
+
+		final var encoded = new int[tokens.size() * 2];
+		for (int i = 0; i < tokens.size(); i++) {
+			final var token = tokens.get(i);
+			encoded[i * 2] = token.startIndex;
+			encoded[i * 2 + 1] = getTypeId(token.type);
+		}
+		return encoded;
+	}
+
+	/**
+	 * @return a read-only view of the given encoded tokens. The {@link TMToken} instances are created on access.
+	 */
+	List<TMToken> decode(final int[] encodedTokens) {
+		return new EncodedTokenList(encodedTokens);
+	}
+
+	private final class EncodedTokenList extends AbstractList<TMToken> implements RandomAccess {
+
+		private final int[] encodedTokens;
+
+		EncodedTokenList(final int[] encodedTokens) {
+			this.encodedTokens = encodedTokens;
+		}
+
+		@Override
+		public TMToken get(final int index) {
+			if (index < 0 || index >= size())
+				throw new IndexOutOfBoundsException(index);
+			return new TMToken(encodedTokens[index * 2], getType(encodedTokens[index * 2 + 1]));
+		}
+
+		@Override
+		public int size() {
+			return encodedTokens.length / 2;
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.model;
+
+import java.time.Duration;
+
+/**
+ * Time budget of the background tokenization of a {@link TMModel}.
+ * <p>
+ * Lines are tokenized in slices. A slice ends before the next line would exceed the slice's budget based on the
+ * measured average time per line, so that models sharing the same executor get their turn and the lines visible in
+ * the UI are not delayed by long running work.
+ *
+ * @param backgroundSlice max time spent at once revalidating lines outside the visible range
+ * @param foregroundSlice max time spent at once revalidating the lines of the visible range, see
+ *        {@link ITMModel#setVisibleRange(int, int)}
+ * @param maxTimePerLine max time spent tokenizing a single line. The rest of a line exceeding it is treated as one
+ *        default token.
+ */
+public record TokenizationTimeBudget(Duration backgroundSlice, Duration foregroundSlice, Duration maxTimePerLine) {
+
+	public static final TokenizationTimeBudget DEFAULT = new TokenizationTimeBudget(
+		Duration.ofMillis(200),
+		Duration.ofMillis(50),
+		Duration.ofSeconds(1));
+}
@@ -16,6 +16,7 @@
  */
 package org.eclipse.tm4e.core.registry;
 
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
 
@@ -49,4 +50,21 @@ default IGrammarSource getGrammarSource(@SuppressWarnings("unused") final String
 	default Collection<@NonNull String> getInjections(@SuppressWarnings("unused") final String scopeName) {
 		return null;
 	}
+
+	/**
+	 * @return directory in which parsed grammars are cached in a binary format, so that subsequent loads of an
+	 *         unchanged grammar skip parsing, or null to disable caching
+	 */
+	@Nullable
+	default Path getGrammarCacheDirectory() {
+		return null;
+	}
+
+	/**
+	 * @return the maximum number of line tokenization results each grammar caches in memory, keyed by the line text
+	 *         and the start state, or 0 to disable caching. When exceeded the least recently used results are evicted.
+	 */
+	default int getTokenizationCacheSize() {
+		return 0;
+	}
 }
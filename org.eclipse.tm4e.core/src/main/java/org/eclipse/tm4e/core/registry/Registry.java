@@ -60,7 +60,8 @@ public Registry(final IRegistryOptions options) {
 		this._options = options;
 
 		this._syncRegistry = new SyncRegistry(
-			Theme.createFromRawTheme(options.getTheme(), options.getColorMap()));
+			Theme.createFromRawTheme(options.getTheme(), options.getColorMap()),
+			options.getTokenizationCacheSize());
 	}
 
 	/**
@@ -160,7 +161,7 @@ private boolean _doLoadSingleGrammar(final String scopeName) {
 			return false;
 		}
 		try {
-			final var grammar = GrammarReader.readGrammar(grammarSource);
+			final var grammar = GrammarReader.readGrammar(grammarSource, this._options.getGrammarCacheDirectory());
 			this._syncRegistry.addGrammar(grammar, this._options.getInjections(scopeName));
 		} catch (final Exception ex) {
 			LOGGER.log(ERROR, "Loading grammar for scope [{0}] failed: {1}", scopeName, ex.getMessage(), ex);
@@ -179,7 +180,7 @@ public IGrammar addGrammar(
 		@Nullable final Integer initialLanguage,
 		@Nullable final Map<String, Integer> embeddedLanguages) throws TMException {
 		try {
-			final var rawGrammar = GrammarReader.readGrammar(source);
+			final var rawGrammar = GrammarReader.readGrammar(source, this._options.getGrammarCacheDirectory());
 			this._syncRegistry.addGrammar(rawGrammar,
 				injections == null || injections.isEmpty()
 					? this._options.getInjections(rawGrammar.getScopeName())
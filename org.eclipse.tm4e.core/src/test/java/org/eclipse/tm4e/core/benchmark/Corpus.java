@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.eclipse.tm4e.core.Data;
+import org.eclipse.tm4e.core.grammar.IGrammar;
+import org.eclipse.tm4e.core.registry.IGrammarSource;
+import org.eclipse.tm4e.core.registry.Registry;
+
+/**
+ * Grammars of the language pack and matching source files used as benchmark input.
+ * <p>
+ * The grammars are loaded from the <code>org.eclipse.tm4e.language_pack</code> project which is expected to be a
+ * sibling of the current working directory. A different location can be specified via the system property
+ * <code>tm4e.languagePack</code>.
+ */
+public enum Corpus {
+
+	JAVA("java/java.tmLanguage.json", GrammarBenchmark.class, "GrammarBenchmark.JavaFile.txt"),
+	MARKDOWN("markdown-basics/markdown.tmLanguage.json", Data.class, "test.md.txt"),
+	TYPESCRIPT("typescript-basics/TypeScript.tmLanguage.json", Data.class, "raytracer.ts");
+
+	static final Path LANGUAGE_PACK_DIR = Path.of(System.getProperty("tm4e.languagePack",
+		"../org.eclipse.tm4e.language_pack"));
+
+	private final String grammarFile;
+	private final Class<?> sourceFileBase;
+	private final String sourceFile;
+
+	Corpus(final String grammarFile, final Class<?> sourceFileBase, final String sourceFile) {
+		this.grammarFile = grammarFile;
+		this.sourceFileBase = sourceFileBase;
+		this.sourceFile = sourceFile;
+	}
+
+	public IGrammarSource getGrammarSource() {
+		return IGrammarSource.fromFile(LANGUAGE_PACK_DIR.resolve(grammarFile));
+	}
+
+	public IGrammar loadGrammar() {
+		return new Registry().addGrammar(getGrammarSource());
+	}
+
+	public String[] loadLines() throws IOException {
+		try (var reader = new BufferedReader(new InputStreamReader(
+			sourceFileBase.getResourceAsStream(sourceFile), StandardCharsets.UTF_8))) {
+			return reader.lines().toArray(String[]::new);
+		}
+	}
+}
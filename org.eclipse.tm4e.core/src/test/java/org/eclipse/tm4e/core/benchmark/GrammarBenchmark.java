@@ -9,57 +9,92 @@
  */
 package org.eclipse.tm4e.core.benchmark;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.nio.IntBuffer;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.tm4e.core.grammar.IGrammar;
 import org.eclipse.tm4e.core.grammar.IStateStack;
-import org.eclipse.tm4e.core.registry.IGrammarSource;
-import org.eclipse.tm4e.core.registry.Registry;
+import org.eclipse.tm4e.core.model.TMTokenization;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
 
-public final class GrammarBenchmark implements Runnable {
+/**
+ * Measures how long it takes to tokenize a whole source file line by line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2048M", "-Xmx2048M", "-XX:+UseG1GC", "-Dfile.encoding=UTF-8" })
+public class GrammarBenchmark {
 
-	private static final int WARMUP_ROUNDS = 3;
-	private static final int BENCHMARK_ROUNDS = 3;
-	private static final int OPS_PER_BENCHMARK_ROUND = 50;
+	@Param
+	public Corpus corpus = Corpus.JAVA;
 
-	public static void main(final String... args) throws Exception {
-		BenchmarkRunner.run(WARMUP_ROUNDS, BENCHMARK_ROUNDS, OPS_PER_BENCHMARK_ROUND, new GrammarBenchmark());
-	}
+	private IGrammar grammar;
+	private String[] lines;
+	private IntBuffer binaryTokens = IntBuffer.allocate(64);
 
-	final IGrammar grammar;
-	final String[] sourceCode;
+	@Setup
+	public void setup() throws Exception {
+		grammar = corpus.loadGrammar();
+		lines = corpus.loadLines();
+	}
 
-	GrammarBenchmark() throws Exception {
-		/*
-		 * load the grammar
-		 */
-		grammar = new Registry().addGrammar(
-			IGrammarSource.fromResource(GrammarBenchmark.class, "GrammarBenchmark.Java.tmLanguage.json"));
+	@Benchmark
+	public IStateStack tokenizeLine(final Blackhole blackhole) {
+		IStateStack state = null;
+		for (final var line : lines) {
+			final var result = grammar.tokenizeLine(line, state, null);
+			blackhole.consume(result.getTokens());
+			state = result.getRuleStack();
+		}
+		return state;
+	}
 
-		/*
-		 * load the file to be parsed
-		 */
-		try (var sourceFileIS = GrammarBenchmark.class.getResourceAsStream("GrammarBenchmark.JavaFile.txt")) {
-			sourceCode = new BufferedReader(new InputStreamReader(sourceFileIS, StandardCharsets.UTF_8))
-				.lines()
-				.toArray(String[]::new);
+	@Benchmark
+	public IStateStack tokenizeLine2(final Blackhole blackhole) {
+		IStateStack state = null;
+		for (final var line : lines) {
+			final var result = grammar.tokenizeLine2(line, state, null);
+			blackhole.consume(result.getTokens());
+			state = result.getRuleStack();
 		}
-		System.out.println(
-			String.format("Source Code chars: %,d", Arrays.stream(sourceCode).mapToInt(String::length).sum()));
-		System.out.println(String.format("Source Code lines: %,d", sourceCode.length));
+		return state;
 	}
 
-	/**
-	 * Tokenize all lines of the pre-loaded source file
-	 */
-	@Override
-	public void run() {
+	@Benchmark
+	public IStateStack tokenizeLine2IntoBuffer(final Blackhole blackhole) {
 		IStateStack state = null;
-		for (final var line : sourceCode) {
-			state = grammar.tokenizeLine(line, state, null).getRuleStack();
+		for (final var line : lines) {
+			final var result = grammar.tokenizeLine2(line, state, null, binaryTokens);
+			binaryTokens = result.getTokens();
+			blackhole.consume(binaryTokens);
+			state = result.getRuleStack();
+		}
+		return state;
+	}
+
+	@Benchmark
+	public IStateStack tmTokenization(final Blackhole blackhole) {
+		final var tokenizer = new TMTokenization(grammar);
+		IStateStack state = tokenizer.getInitialState();
+		for (final var line : lines) {
+			final var result = tokenizer.tokenize(line, state);
+			blackhole.consume(result.getTokens());
+			state = result.getEndState();
 		}
+		return state;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.tm4e.core.grammar.IGrammar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long it takes to load a grammar with a new registry, i.e. without any cached state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2048M", "-Xmx2048M", "-XX:+UseG1GC", "-Dfile.encoding=UTF-8" })
+public class GrammarLoadBenchmark {
+
+	@Param
+	public Corpus corpus = Corpus.JAVA;
+
+	/**
+	 * Reads the grammar file and creates the grammar. Rules are compiled lazily on first use.
+	 */
+	@Benchmark
+	public IGrammar load() {
+		return corpus.loadGrammar();
+	}
+
+	/**
+	 * Reads the grammar file, creates the grammar and compiles all its rules.
+	 */
+	@Benchmark
+	public IGrammar loadAndPrecompile() {
+		final var grammar = corpus.loadGrammar();
+		grammar.precompile();
+		return grammar;
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.benchmark;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.tm4e.core.grammar.IStateStack;
+import org.eclipse.tm4e.core.internal.grammar.ScopeStack;
+import org.eclipse.tm4e.core.internal.theme.Theme;
+import org.eclipse.tm4e.core.internal.theme.ThemeReader;
+import org.eclipse.tm4e.core.registry.IThemeSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures how long it takes to resolve the style of all tokens of a source file via {@link Theme#match}.
+ * <p>
+ * The themes are loaded from the <code>org.eclipse.tm4e.core.tests</code> project which is expected to be a sibling
+ * of the current working directory. A different location can be specified via the system property
+ * <code>tm4e.themes</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2048M", "-Xmx2048M", "-XX:+UseG1GC", "-Dfile.encoding=UTF-8" })
+public class ThemeBenchmark {
+
+	static final Path THEMES_DIR = Path.of(System.getProperty("tm4e.themes",
+		"../org.eclipse.tm4e.core.tests/src/main/resources/test-cases/themes"));
+
+	@Param
+	public Corpus corpus = Corpus.JAVA;
+
+	@Param({ "Monokai", "Solarized-light" })
+	public String theme = "Monokai";
+
+	private Theme parsedTheme;
+	private ScopeStack[] scopePaths;
+
+	@Setup
+	public void setup() throws Exception {
+		parsedTheme = Theme.createFromRawTheme(
+			ThemeReader.readTheme(IThemeSource.fromFile(THEMES_DIR.resolve(theme + ".tmTheme"))), null);
+
+		final var grammar = corpus.loadGrammar();
+		final List<ScopeStack> scopePaths = new ArrayList<>();
+		IStateStack state = null;
+		for (final var line : corpus.loadLines()) {
+			final var result = grammar.tokenizeLine(line, state, null);
+			for (final var token : result.getTokens()) {
+				scopePaths.add(ScopeStack.from(token.getScopes()));
+			}
+			state = result.getRuleStack();
+		}
+		this.scopePaths = scopePaths.toArray(ScopeStack[]::new);
+	}
+
+	@Benchmark
+	public void match(final Blackhole blackhole) {
+		for (final var scopePath : scopePaths) {
+			blackhole.consume(parsedTheme.match(scopePath));
+		}
+	}
+}
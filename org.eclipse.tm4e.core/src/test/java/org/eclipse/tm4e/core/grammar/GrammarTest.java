@@ -17,10 +17,14 @@
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.IntBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import org.eclipse.tm4e.core.Data;
@@ -235,6 +239,90 @@ void testTokenizeTypeScriptFile() throws Exception {
 		}
 	}
 
+	@Test
+	void testTokenizeTypeScriptFileConcurrently() throws Exception {
+		final var grammar = new Registry().addGrammar(fromResource(Data.class, "TypeScript.tmLanguage.json"));
+
+		final List<String> expectedTokens;
+		try (var resource = Data.class.getResourceAsStream("raytracer_tokens.txt")) {
+			expectedTokens = new BufferedReader(new InputStreamReader(resource, StandardCharsets.UTF_8))
+				.lines().toList();
+		}
+		final List<String> lines;
+		try (var reader = new BufferedReader(new InputStreamReader(Data.class.getResourceAsStream("raytracer.ts")))) {
+			lines = reader.lines().toList();
+		}
+
+		// the grammar is shared by all threads, rules get compiled lazily while tokenizing
+		final var executor = Executors.newFixedThreadPool(4);
+		try {
+			final var tasks = new ArrayList<Callable<List<String>>>();
+			for (int t = 0; t < 8; t++) {
+				tasks.add(() -> {
+					final var actualTokens = new ArrayList<String>();
+					IStateStack stateStack = null;
+					for (final var line : lines) {
+						final var lineTokens = grammar.tokenizeLine(line, stateStack, null);
+						stateStack = lineTokens.getRuleStack();
+						for (final var token : lineTokens.getTokens()) {
+							actualTokens.add("Token from " + token.getStartIndex() + " to " + token.getEndIndex()
+								+ " with scopes " + token.getScopes());
+						}
+					}
+					return actualTokens;
+				});
+			}
+			for (final var result : executor.invokeAll(tasks)) {
+				assertEquals(expectedTokens, result.get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void testPrecompile() throws Exception {
+		final var registry = new Registry();
+		final IGrammar grammar = registry.addGrammar(fromResource(Data.class, "JavaScript.tmLanguage"));
+		grammar.precompile();
+		final var lineTokens = grammar.tokenizeLine("function add(a,b) { return a+b; }");
+		for (int i = 0; i < lineTokens.getTokens().length; i++) {
+			final IToken token = lineTokens.getTokens()[i];
+			assertEquals(EXPECTED_SINGLE_LINE_TOKENS[i], "Token from " + token.getStartIndex() + " to "
+				+ token.getEndIndex() + " with scopes " + token.getScopes());
+		}
+
+		final var grammar2 = new Registry().addGrammar(fromResource(Data.class, "TypeScript.tmLanguage.json"));
+		final var executor = Executors.newFixedThreadPool(4);
+		try {
+			grammar2.precompileAsync(executor).get();
+		} finally {
+			executor.shutdownNow();
+		}
+		assertFalse(grammar2.tokenizeLine("class Foo { }").isStoppedEarly());
+	}
+
+	@Test
+	void testTokenizeLine2IntoBuffer() throws Exception {
+		final var registry = new Registry();
+		final IGrammar grammar = registry.addGrammar(fromResource(Data.class, "JavaScript.tmLanguage"));
+		final String[] lines = { "function add(a,b)", "{ return a+b; }", "" };
+
+		IStateStack ruleStack = null;
+		var buffer = IntBuffer.allocate(2); // too small, must be replaced by a larger one
+		for (final String line : lines) {
+			final var expected = grammar.tokenizeLine2(line, ruleStack, null);
+			final var actual = grammar.tokenizeLine2(line, ruleStack, null, buffer);
+			assertEquals(expected.getRuleStack(), actual.getRuleStack());
+			buffer = actual.getTokens();
+			assertEquals(0, buffer.position());
+			final var actualTokens = new int[buffer.remaining()];
+			buffer.get(0, actualTokens);
+			assertArrayEquals(expected.getTokens(), actualTokens);
+			ruleStack = actual.getRuleStack();
+		}
+	}
+
 	@Test
 	void testTokenizeWithTimeout() throws IOException {
 		final var grammar = new Registry().addGrammar(fromResource(Data.class, "TypeScript.tmLanguage.json"));
@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.internal.grammar;
+
+import static org.eclipse.tm4e.core.internal.utils.NullSafetyHelper.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eclipse.tm4e.core.internal.rule.RuleId;
+import org.junit.jupiter.api.Test;
+
+class StateStackTest {
+
+	private static StateStack createState(final String blockScope, final int blockRuleId) {
+		final var rootScopes = AttributedScopeStack.createRoot("source.ts", 1);
+		final var blockScopes = new AttributedScopeStack(rootScopes, new ScopeStack(null, blockScope), 2);
+		final var root = new StateStack(null, RuleId.of(1), 0, 0, false, null, rootScopes, rootScopes);
+		return root.push(RuleId.of(blockRuleId), 4, 4, false, "}", blockScopes, blockScopes);
+	}
+
+	@Test
+	void testEqualsAndHashCode() {
+		final var state = createState("meta.block.ts", 3);
+		final var equalState = createState("meta.block.ts", 3);
+		assertNotSame(state, equalState);
+		assertEquals(state, equalState);
+		assertEquals(state.hashCode(), equalState.hashCode());
+		assertEquals(state.contentNameScopesList, equalState.contentNameScopesList);
+		assertEquals(state.contentNameScopesList.hashCode(), equalState.contentNameScopesList.hashCode());
+		assertEquals(state.pop(), equalState.pop());
+
+		assertNotEquals(state, createState("meta.class.ts", 3));
+		assertNotEquals(state, createState("meta.block.ts", 4));
+		assertNotEquals(state, state.pop());
+
+		final var nestedState = state.push(RuleId.of(5), 0, 0, false, null,
+			state.contentNameScopesList, state.contentNameScopesList);
+		assertNotEquals(state, nestedState);
+		assertEquals(equalState, nestedState.pop());
+	}
+
+	@Test
+	void testResetDoesNotModifyState() {
+		final var state = createState("meta.block.ts", 3);
+
+		final var resetState = state.reset();
+		assertNotSame(state, resetState);
+		assertEquals(state, resetState);
+		assertEquals(4, state.getEnterPos());
+		assertEquals(4, state.getAnchorPos());
+		assertEquals(0, castNonNull(state.pop()).getEnterPos());
+		assertEquals(-1, resetState.getEnterPos());
+		assertEquals(-1, resetState.getAnchorPos());
+		assertEquals(-1, castNonNull(resetState.pop()).getEnterPos());
+
+		// already reset elements are shared
+		assertSame(resetState, resetState.reset());
+		final var nestedState = resetState.push(RuleId.of(5), 2, 2, false, null,
+			state.contentNameScopesList, state.contentNameScopesList);
+		assertSame(resetState, nestedState.reset().pop());
+	}
+}
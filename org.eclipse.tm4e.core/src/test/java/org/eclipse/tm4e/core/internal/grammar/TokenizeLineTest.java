@@ -1,9 +1,16 @@
 package org.eclipse.tm4e.core.internal.grammar;
 
+import static org.eclipse.tm4e.core.internal.utils.NullSafetyHelper.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
 import org.eclipse.tm4e.core.Data;
+import org.eclipse.tm4e.core.internal.grammar.tokenattrs.EncodedTokenAttributes;
 import org.eclipse.tm4e.core.registry.IGrammarSource;
+import org.eclipse.tm4e.core.registry.IRegistryOptions;
+import org.eclipse.tm4e.core.registry.IThemeSource;
 import org.eclipse.tm4e.core.registry.Registry;
 import org.junit.jupiter.api.Test;
 
@@ -127,4 +134,98 @@ void testTokenizeMultiByteLine2() throws Exception {
 
 		System.out.println("----------");
 	}
+
+	@Test
+	void testTokenizationCache() throws Exception {
+		final var registry = new Registry(new IRegistryOptions() {
+			@Override
+			public int getTokenizationCacheSize() {
+				return 100;
+			}
+		});
+		final var grammar = (Grammar) registry.addGrammar(IGrammarSource.fromResource(Data.class,
+			"JavaScript.tmLanguage"));
+
+		final var line1 = "function add(a,b) {";
+		final var line2 = "  return a+b; }";
+		final var result1 = grammar.tokenizeLine(line1);
+		final var result2 = grammar.tokenizeLine(line2, result1.getRuleStack(), null);
+		final var binaryResult2 = grammar.tokenizeLine2(line2, result1.getRuleStack(), null);
+		assertEquals(0, castNonNull(grammar.getTokenizationCacheStats()).hitCount());
+		assertEquals(3, castNonNull(grammar.getTokenizationCacheStats()).missCount());
+
+		final var cachedResult1 = grammar.tokenizeLine(line1);
+		final var cachedResult2 = grammar.tokenizeLine(line2, cachedResult1.getRuleStack(), null);
+		final var cachedBinaryResult2 = grammar.tokenizeLine2(line2, cachedResult1.getRuleStack(), null);
+		assertEquals(3, castNonNull(grammar.getTokenizationCacheStats()).hitCount());
+
+		assertEquals(Arrays.toString(result1.getTokens()), Arrays.toString(cachedResult1.getTokens()));
+		assertEquals(Arrays.toString(result2.getTokens()), Arrays.toString(cachedResult2.getTokens()));
+		assertArrayEquals(binaryResult2.getTokens(), cachedBinaryResult2.getTokens());
+		assertEquals(result2.getRuleStack(), cachedResult2.getRuleStack());
+
+		// the returned arrays are copies
+		assertNotSame(result1.getTokens(), cachedResult1.getTokens());
+		assertNotSame(binaryResult2.getTokens(), cachedBinaryResult2.getTokens());
+
+		final var bufferResult2 = grammar.tokenizeLine2(line2, result1.getRuleStack(), null, IntBuffer.allocate(100));
+		assertEquals(4, castNonNull(grammar.getTokenizationCacheStats()).hitCount());
+		final var bufferTokens = new int[bufferResult2.getTokens().remaining()];
+		bufferResult2.getTokens().get(bufferTokens);
+		assertArrayEquals(binaryResult2.getTokens(), bufferTokens);
+
+		grammar.clearTokenizationCache();
+		grammar.tokenizeLine(line1);
+		assertEquals(4, castNonNull(grammar.getTokenizationCacheStats()).hitCount());
+	}
+
+	@Test
+	void testTokenizationCacheConsidersCapturedEOL() throws Exception {
+		final var registry = new Registry(new IRegistryOptions() {
+			@Override
+			public int getTokenizationCacheSize() {
+				return 100;
+			}
+		});
+		final var grammar = registry.addGrammar(IGrammarSource.fromString(IGrammarSource.ContentType.JSON, """
+			{"scopeName": "source.test", "patterns": [{
+				"name": "meta.block.test", "begin": "begin\\\\n?", "end": "end",
+				"patterns": [{"name": "keyword.first.test", "match": "\\\\Gfirst"}]
+			}]}"""));
+
+		// equal states, but only the first one captured the end of the line
+		final var capturedEOLState = grammar.tokenizeLine("begin").getRuleStack();
+		final var state = grammar.tokenizeLine("begin ").getRuleStack();
+		assertEquals(state, capturedEOLState);
+
+		final var line = "first end";
+		assertFalse(grammar.tokenizeLine(line, state, null).getTokens()[0].getScopes().contains("keyword.first.test"));
+		assertTrue(grammar.tokenizeLine(line, capturedEOLState, null).getTokens()[0].getScopes()
+			.contains("keyword.first.test"));
+	}
+
+	@Test
+	void testThemeMatchesAreResolvedAgainAfterThemeChange() throws Exception {
+		final var registry = new Registry();
+		registry.setTheme(IThemeSource.fromString(IThemeSource.ContentType.JSON, """
+			{"name": "Theme1", "settings": [
+				{"settings": {"foreground": "#000000", "background": "#FFFFFF"}},
+				{"scope": "storage", "settings": {"foreground": "#FF0000"}}
+			]}"""));
+		final var grammar = registry.addGrammar(IGrammarSource.fromResource(Data.class, "JavaScript.tmLanguage"));
+
+		final var line = "function add(a,b) {";
+		final int defaultForeground = EncodedTokenAttributes.getForeground(grammar.tokenizeLine2("a").getTokens()[1]);
+		final int storageForeground = EncodedTokenAttributes.getForeground(grammar.tokenizeLine2(line).getTokens()[1]);
+		assertNotEquals(defaultForeground, storageForeground);
+		assertEquals(storageForeground,
+			EncodedTokenAttributes.getForeground(grammar.tokenizeLine2(line).getTokens()[1]));
+
+		registry.setTheme(IThemeSource.fromString(IThemeSource.ContentType.JSON, """
+			{"name": "Theme2", "settings": [
+				{"settings": {"foreground": "#000000", "background": "#FFFFFF"}}
+			]}"""));
+		assertEquals(defaultForeground,
+			EncodedTokenAttributes.getForeground(grammar.tokenizeLine2(line).getTokens()[1]));
+	}
 }
@@ -14,11 +14,17 @@
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
 import org.eclipse.tm4e.core.Data;
 import org.eclipse.tm4e.core.internal.grammar.GrammarReader;
 import org.eclipse.tm4e.core.internal.types.IRawGrammar;
 import org.eclipse.tm4e.core.registry.IGrammarSource;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class GrammarReaderTest {
 
@@ -42,4 +48,63 @@ public void testLoadDifferentPlistFormats() throws Exception {
 			.readGrammar(IGrammarSource.fromResource(Data.class, "JavaScript.tmLanguage.yaml"));
 		assertEquals(grammarFromJSON, grammarFromYAML);
 	}
+
+	/**
+	 * Loads a TextMate grammar twice with caching enabled and checks the grammar read from the cache
+	 * equals the parsed one.
+	 */
+	@Test
+	public void testLoadFromCache(@TempDir final Path cacheDir) throws Exception {
+		final var source = IGrammarSource.fromResource(Data.class, "JavaScript.tmLanguage.json");
+		final IRawGrammar parsedGrammar = GrammarReader.readGrammar(source);
+
+		final IRawGrammar grammar1 = GrammarReader.readGrammar(source, cacheDir);
+		assertEquals(parsedGrammar, grammar1);
+		try (var cacheFiles = Files.list(cacheDir)) {
+			assertEquals(1, cacheFiles.count());
+		}
+
+		final Path cacheFile;
+		try (var cacheFiles = Files.list(cacheDir)) {
+			cacheFile = cacheFiles.findFirst().orElseThrow();
+		}
+
+		// the cache file is rewritten whenever the grammar is parsed, so an unchanged modification time proves that
+		// the grammar was read from the cache
+		final var modificationTime = FileTime.fromMillis(0);
+		Files.setLastModifiedTime(cacheFile, modificationTime);
+		final IRawGrammar grammar2 = GrammarReader.readGrammar(source, cacheDir);
+		assertEquals(modificationTime, Files.getLastModifiedTime(cacheFile));
+		assertEquals(parsedGrammar, grammar2);
+		assertEquals(parsedGrammar.getFileTypes(), grammar2.getFileTypes());
+	}
+
+	/**
+	 * Checks that a grammar is parsed again and the cache file is replaced if the cache file is corrupted.
+	 */
+	@Test
+	public void testLoadFromCorruptedCache(@TempDir final Path cacheDir) throws Exception {
+		final var source = IGrammarSource.fromResource(Data.class, "JavaScript.tmLanguage.json");
+		final IRawGrammar parsedGrammar = GrammarReader.readGrammar(source);
+
+		GrammarReader.readGrammar(source, cacheDir);
+		final Path cacheFile;
+		try (var cacheFiles = Files.list(cacheDir)) {
+			cacheFile = cacheFiles.findFirst().orElseThrow();
+		}
+		final byte[] cacheContent = Files.readAllBytes(cacheFile);
+
+		for (final int length : new int[] { 0, 6, cacheContent.length / 2, cacheContent.length - 1 }) {
+			Files.write(cacheFile, Arrays.copyOf(cacheContent, length));
+			assertEquals(parsedGrammar, GrammarReader.readGrammar(source, cacheDir));
+			assertArrayEquals(cacheContent, Files.readAllBytes(cacheFile));
+		}
+
+		// an invalid value tag after a valid header
+		final byte[] invalidContent = cacheContent.clone();
+		invalidContent[invalidContent.length / 2] = (byte) 0xFF;
+		Files.write(cacheFile, invalidContent);
+		assertEquals(parsedGrammar, GrammarReader.readGrammar(source, cacheDir));
+		assertArrayEquals(cacheContent, Files.readAllBytes(cacheFile));
+	}
 }
@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.internal.oniguruma;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CachingOnigLibTest {
+
+	@Test
+	void testScannersAndRegExpsAreShared() {
+		final var onigLib = new CachingOnigLib();
+
+		final var scanner1 = onigLib.createOnigScanner(List.of("a", "\\Gb", "c"));
+		final var scanner2 = onigLib.createOnigScanner(new ArrayList<>(List.of("a", "\\Gb", "c")));
+		assertSame(scanner1, scanner2);
+		assertEquals(1, onigLib.getScannerCount());
+		// "a", "\\Gb", "c" and the alternation of the combinable "a" and "c"
+		assertEquals(4, onigLib.getRegExpCount());
+
+		final var scanner3 = onigLib.createOnigScanner(List.of("\\Gb", "d"));
+		assertNotSame(scanner1, scanner3);
+		assertEquals(2, onigLib.getScannerCount());
+		assertEquals(5, onigLib.getRegExpCount());
+
+		final var result = scanner3.findNextMatchSync("xbd", 1);
+		assertNotNull(result);
+		assertEquals(0, result.getIndex());
+	}
+
+	@Test
+	void testCacheIsBounded() {
+		final var onigLib = new CachingOnigLib(2, 4);
+
+		// e.g. end patterns resolved with the delimiters of heredocs
+		for (int i = 0; i < 100; i++) {
+			final var scanner = onigLib.createOnigScanner(List.of("^EOF" + i + "$"));
+			assertSame(scanner, onigLib.createOnigScanner(List.of("^EOF" + i + "$")));
+		}
+		assertTrue(onigLib.getScannerCount() <= 2);
+		assertTrue(onigLib.getRegExpCount() <= 4);
+	}
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.internal.oniguruma;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+class OnigPrefilterTest {
+
+	private static int findCandidate(final String pattern, final String text) {
+		final var prefilter = OnigPrefilter.of(pattern);
+		assertNotNull(prefilter, pattern);
+		final var str = OnigString.of(text);
+		return prefilter.findCandidate(str.bytesUTF8, 0, str.bytesCount);
+	}
+
+	private static @Nullable OnigPrefilter prefilter(final String pattern) {
+		return OnigPrefilter.of(pattern);
+	}
+
+	@Test
+	void testUnknownStart() {
+		assertNull(prefilter(".*"));
+		assertNull(prefilter("a?"));
+		assertNull(prefilter("\\s*"));
+		assertNull(prefilter("(?i)select"));
+		assertNull(prefilter("a(?i)b|c"));
+		assertNull(prefilter("\\\\(?i)"));
+		assertNull(prefilter("[^a]"));
+		assertNull(prefilter("\\S+"));
+		assertNull(prefilter("(['\"])|\\1"));
+		assertNull(prefilter("$"));
+		assertNull(prefilter("\\p{Alpha}"));
+		assertNull(prefilter("a|(?=b)"));
+	}
+
+	@Test
+	void testLiteralPrefix() {
+		assertEquals(6, findCandidate("\\bclass\\b", "final class A"));
+		assertEquals(-1, findCandidate("\\bclass\\b", "final clas A"));
+		assertEquals(4, findCandidate("//", "a = //b"));
+		assertEquals(3, findCandidate("a+b", "cccab"));
+		assertEquals(2, findCandidate("\\.\\.\\.", "a ... b"));
+	}
+
+	@Test
+	void testFirstBytes() {
+		assertEquals(2, findCandidate("class|interface", "a interface"));
+		assertEquals(1, findCandidate("(?:\"|')", "a'b"));
+		assertEquals(3, findCandidate("\\s*(#)\\s*(include)", "foo#include"));
+		assertEquals(-1, findCandidate("\\s*(#)\\s*(include)", "foo"));
+		assertEquals(2, findCandidate("[0-9]+", "a 12"));
+		assertEquals(2, findCandidate("(?<=\\s)[A-Z]\\w*", "a Foo"));
+		assertEquals(1, findCandidate("\\d", "aé"));
+		assertEquals(1, findCandidate("été", "aété"));
+		assertEquals(1, findCandidate("\\(?i", "xi"));
+	}
+
+	@Test
+	void testSearch() {
+		final var regexp = new OnigRegExp("\\b(class|interface)\\b");
+		final var line = OnigString.of("public class Foo implements Bar");
+		final var result = regexp.search(line, 0);
+		assertNotNull(result);
+		assertEquals(7, result.locationAt(0));
+		assertNull(regexp.search(line, 8));
+
+		final var matcher = new OnigRegExp("\\Gimplements");
+		assertNull(matcher.search(line, 0));
+		assertNotNull(matcher.search(line, 17));
+		assertNotNull(matcher.matchAt(line, 17));
+		assertNull(matcher.matchAt(line, 18));
+	}
+}
@@ -40,4 +40,102 @@ void testOnigScanner() {
 				result.getCaptureIndices());
 
 	}
+
+	@Test
+	void testOnigScannerLowestIndexWinsOnSameLocation() {
+		final var scanner = new OnigScanner(Arrays.asList("b", "a(b)", "ab", "a"));
+		final OnigNextMatchResult result = scanner.findNextMatchSync("xab", 0);
+		assertNotNull(result);
+		assertEquals(1, result.getIndex());
+		assertArrayEquals(new OnigCaptureIndex[] {
+				new OnigCaptureIndex(0, 1, 3),
+				new OnigCaptureIndex(1, 2, 3) },
+				result.getCaptureIndices());
+	}
+
+	@Test
+	void testOnigScannerWithNonCombinableRegExps() {
+		// back-references and \G anchors are searched individually but must still respect location and index order
+		var scanner = new OnigScanner(Arrays.asList("x", "(a)\\1", "a", "\\Gb"));
+		var result = scanner.findNextMatchSync("baab", 0);
+		assertNotNull(result);
+		assertEquals(3, result.getIndex());
+
+		result = scanner.findNextMatchSync("baab", 1);
+		assertNotNull(result);
+		assertEquals(1, result.getIndex());
+		assertArrayEquals(new OnigCaptureIndex[] {
+				new OnigCaptureIndex(0, 1, 3),
+				new OnigCaptureIndex(1, 1, 2) },
+				result.getCaptureIndices());
+
+		result = scanner.findNextMatchSync("baab", 3);
+		assertNotNull(result);
+		assertEquals(3, result.getIndex());
+		assertEquals(3, result.getCaptureIndices()[0].start);
+
+		scanner = new OnigScanner(Arrays.asList("(?x) a # comment", "b"));
+		result = scanner.findNextMatchSync("ba", 0);
+		assertNotNull(result);
+		assertEquals(1, result.getIndex());
+	}
+
+	@Test
+	void testOnigScannerSuccessiveSearches() {
+		final var scanner = new OnigScanner(Arrays.asList("c", "a", "\\d+"));
+		final var line = OnigString.of("ac 12 ca");
+		final int[][] expected = { { 1, 0 }, { 0, 1 }, { 2, 3 }, { 2, 4 }, { 0, 6 }, { 1, 7 } };
+		int pos = 0;
+		for (final int[] exp : expected) {
+			final var result = scanner.findNextMatchSync(line, pos);
+			assertNotNull(result);
+			assertEquals(exp[0], result.getIndex());
+			assertEquals(exp[1], result.getCaptureIndices()[0].start);
+			pos = result.getCaptureIndices()[0].start + 1;
+		}
+		assertNull(scanner.findNextMatchSync(line, pos));
+	}
+
+	@Test
+	void testOnigScannerFindNextMatch() {
+		final var scanner = new OnigScanner(Arrays.asList("c", "a(b)?", "(\\d)(\\d)(\\d)"));
+		final var line = OnigString.of("ab ä123 c");
+		final var match = new OnigMatch();
+
+		assertTrue(scanner.findNextMatch(line, 0, match));
+		assertEquals(1, match.getIndex());
+		assertEquals(2, match.getCaptureCount());
+		final var result = scanner.findNextMatchSync(line, 0);
+		assertNotNull(result);
+		assertArrayEquals(result.getCaptureIndices(), match.toCaptureIndices());
+
+		assertTrue(scanner.findNextMatch(line, 2, match));
+		assertEquals(2, match.getIndex());
+		assertEquals(4, match.getCaptureCount());
+		assertEquals(4, match.getStart(0));
+		assertEquals(7, match.getEnd(0));
+		assertEquals(6, match.getStart(3));
+		assertEquals(7, match.getEnd(3));
+
+		assertTrue(scanner.findNextMatch(line, 7, match));
+		assertEquals(0, match.getIndex());
+		assertEquals(1, match.getCaptureCount());
+		assertEquals(8, match.getStart(0));
+
+		assertFalse(scanner.findNextMatch(line, 9, match));
+		assertEquals(-1, match.getIndex());
+		assertEquals(0, match.getCaptureCount());
+	}
+
+	@Test
+	void testIsCombinable() {
+		assertTrue(OnigSearcher.isCombinable("\\b(class|interface)\\b"));
+		assertTrue(OnigSearcher.isCombinable("(?i)select"));
+		assertTrue(OnigSearcher.isCombinable("(?<name>a)\\\\1"));
+		assertFalse(OnigSearcher.isCombinable("\\G\\s*"));
+		assertFalse(OnigSearcher.isCombinable("(['\"])(.*?)\\1"));
+		assertFalse(OnigSearcher.isCombinable("(?<q>a)\\k<q>"));
+		assertFalse(OnigSearcher.isCombinable("(?ix) a # comment"));
+		assertFalse(OnigSearcher.isCombinable("(a)?(?(1)b|c)"));
+	}
 }
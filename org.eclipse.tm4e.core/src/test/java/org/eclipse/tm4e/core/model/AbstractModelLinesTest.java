@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class AbstractModelLinesTest {
+
+	private final AbstractModelLines modelLines = new AbstractModelLines() {
+		@Override
+		public String getLineText(final int lineIndex) {
+			return "";
+		}
+	};
+
+	@Test
+	void testAddRemoveReplaceLines() {
+		modelLines.addLines(0, 10);
+		assertEquals(10, modelLines.getNumberOfLines());
+
+		final var line0 = modelLines.get(0);
+		final var line9 = modelLines.get(9);
+
+		modelLines.addLines(5, 3);
+		assertEquals(13, modelLines.getNumberOfLines());
+		assertSame(line0, modelLines.get(0));
+		assertSame(line9, modelLines.get(12));
+
+		modelLines.removeLines(2, 4);
+		assertEquals(9, modelLines.getNumberOfLines());
+		assertSame(line9, modelLines.get(8));
+
+		// removing more lines than available
+		modelLines.removeLines(7, 5);
+		assertEquals(7, modelLines.getNumberOfLines());
+		assertNull(modelLines.getOrNull(7));
+
+		modelLines.replaceLines(1, 3, 5);
+		assertEquals(9, modelLines.getNumberOfLines());
+		assertSame(line0, modelLines.get(0));
+
+		modelLines.replaceLines(1, 5, 2);
+		assertEquals(6, modelLines.getNumberOfLines());
+		assertSame(line0, modelLines.get(0));
+
+		assertNull(modelLines.getOrNull(-1));
+		assertThrows(IndexOutOfBoundsException.class, () -> modelLines.get(6));
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.model;
+
+import static org.eclipse.tm4e.core.internal.utils.NullSafetyHelper.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class ModelTokensChangedEventCoalescerTest {
+
+	private final ITMModel model = new TMModel(new AbstractModelLines() {
+		@Override
+		public String getLineText(final int lineIndex) {
+			return "";
+		}
+	});
+
+	private ModelTokensChangedEvent event(final Range... ranges) {
+		return new ModelTokensChangedEvent(List.of(ranges), model);
+	}
+
+	@Test
+	void testMergeRanges() {
+		final var signals = new AtomicInteger();
+		final var coalescer = new ModelTokensChangedEventCoalescer(Duration.ofHours(1), 1000,
+			signals::incrementAndGet);
+		assertNull(coalescer.pollChanges());
+
+		coalescer.modelTokensChanged(event(new Range(10, 20), new Range(40, 50)));
+		coalescer.modelTokensChanged(event(new Range(15, 25)));
+		coalescer.modelTokensChanged(event(new Range(26, 30), new Range(60)));
+		coalescer.modelTokensChanged(event(new Range(1, 5), new Range(3, 8)));
+		coalescer.modelTokensChanged(event(new Range(35, 55)));
+		assertEquals(0, signals.get());
+
+		final var merged = castNonNull(coalescer.pollChanges());
+		assertSame(model, merged.model);
+		assertEquals(List.of(new Range(1, 8), new Range(10, 30), new Range(35, 55), new Range(60)), merged.ranges);
+		assertNull(coalescer.pollChanges());
+	}
+
+	@Test
+	void testSignalOnMaxBatchSize() {
+		final var signals = new AtomicInteger();
+		final var coalescer = new ModelTokensChangedEventCoalescer(Duration.ofHours(1), 100,
+			signals::incrementAndGet);
+
+		coalescer.modelTokensChanged(event(new Range(1, 50)));
+		assertEquals(0, signals.get());
+		coalescer.modelTokensChanged(event(new Range(51, 100)));
+		assertEquals(1, signals.get());
+
+		// the consumer is not signaled again until it polled the changes
+		coalescer.modelTokensChanged(event(new Range(200, 400)));
+		assertEquals(1, signals.get());
+		assertEquals(List.of(new Range(1, 100), new Range(200, 400)), castNonNull(coalescer.pollChanges()).ranges);
+
+		coalescer.modelTokensChanged(event(new Range(1, 100)));
+		assertEquals(2, signals.get());
+	}
+
+	@Test
+	void testPushOnMaxLatency() throws InterruptedException {
+		final var events = new ArrayBlockingQueue<ModelTokensChangedEvent>(10);
+		final var coalescer = new ModelTokensChangedEventCoalescer(Duration.ofMillis(50), 1000,
+			(IModelTokensChangedListener) events::add);
+
+		coalescer.modelTokensChanged(event(new Range(1)));
+		coalescer.modelTokensChanged(event(new Range(2)));
+		final var merged = events.poll(5, TimeUnit.SECONDS);
+		assertNotNull(merged);
+		assertEquals(List.of(new Range(1, 2)), merged.ranges);
+		assertNull(events.poll(200, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void testPushDoesNotNotifyConcurrently() throws InterruptedException {
+		final var events = new ArrayBlockingQueue<ModelTokensChangedEvent>(10);
+		final var runningListeners = new AtomicInteger();
+		final var releaseListener = new CountDownLatch(1);
+		final var coalescer = new ModelTokensChangedEventCoalescer(Duration.ofMillis(10), 1000,
+			(IModelTokensChangedListener) event -> {
+				assertEquals(1, runningListeners.incrementAndGet());
+				try {
+					releaseListener.await(5, TimeUnit.SECONDS);
+				} catch (final InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				runningListeners.decrementAndGet();
+				events.add(event);
+			});
+
+		coalescer.modelTokensChanged(event(new Range(1)));
+		final long deadline = System.currentTimeMillis() + 5_000;
+		while (runningListeners.get() == 0) {
+			assertTrue(System.currentTimeMillis() < deadline, "Listener was not notified");
+			Thread.sleep(10);
+		}
+
+		// changes received while the listener is running are delivered after it returned
+		coalescer.modelTokensChanged(event(new Range(2)));
+		Thread.sleep(200);
+		assertEquals(1, runningListeners.get());
+		releaseListener.countDown();
+		assertEquals(List.of(new Range(1)), castNonNull(events.poll(5, TimeUnit.SECONDS)).ranges);
+		assertEquals(List.of(new Range(2)), castNonNull(events.poll(5, TimeUnit.SECONDS)).ranges);
+	}
+}
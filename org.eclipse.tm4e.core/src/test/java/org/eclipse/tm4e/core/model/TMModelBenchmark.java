@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.tm4e.core.benchmark.Corpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long it takes the {@link TMModel} to bring its tokens up-to-date again after the document was edited.
+ * <p>
+ * Each benchmark operation applies an edit in the middle of the document and then waits until the background
+ * tokenizer has revalidated all affected lines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2048M", "-Xmx2048M", "-XX:+UseG1GC", "-Dfile.encoding=UTF-8" })
+public class TMModelBenchmark {
+
+	@Param
+	public Corpus corpus = Corpus.JAVA;
+
+	private final List<String> lines = new ArrayList<>();
+	private final Object tokensChanged = new Object();
+	private final AbstractModelLines modelLines = new AbstractModelLines() {
+		@Override
+		public String getLineText(final int lineIndex) {
+			return lines.get(lineIndex);
+		}
+	};
+	private TMModel model;
+	private int editLineIndex;
+	private String editLineText;
+	private boolean edited;
+
+	@Setup
+	public void setup() throws Exception {
+		lines.addAll(Arrays.asList(corpus.loadLines()));
+		modelLines.addLines(0, lines.size());
+		editLineIndex = lines.size() / 2;
+		editLineText = lines.get(editLineIndex);
+
+		model = new TMModel(modelLines);
+		model.setGrammar(corpus.loadGrammar());
+		model.addModelTokensChangedListener(event -> {
+			synchronized (tokensChanged) {
+				tokensChanged.notifyAll();
+			}
+		});
+		awaitTokenization();
+	}
+
+	@TearDown
+	public void tearDown() {
+		model.dispose();
+	}
+
+	/**
+	 * Alternately clears and restores the text of a line.
+	 */
+	@Benchmark
+	public void retokenizeAfterLineChange() throws InterruptedException {
+		edited = !edited;
+		lines.set(editLineIndex, edited ? "" : editLineText);
+		modelLines.updateLine(editLineIndex);
+		awaitTokenization();
+	}
+
+	/**
+	 * Alternately inserts and removes a copy of a line.
+	 */
+	@Benchmark
+	public void retokenizeAfterLineInsertion() throws InterruptedException {
+		edited = !edited;
+		if (edited) {
+			lines.add(editLineIndex, editLineText);
+			modelLines.addLines(editLineIndex, 1);
+		} else {
+			lines.remove(editLineIndex);
+			modelLines.removeLines(editLineIndex, 1);
+		}
+		awaitTokenization();
+	}
+
+	private void awaitTokenization() throws InterruptedException {
+		synchronized (tokensChanged) {
+			while (hasInvalidLines()) {
+				tokensChanged.wait(100);
+			}
+		}
+	}
+
+	private boolean hasInvalidLines() {
+		for (int i = 0, n = modelLines.getNumberOfLines(); i < n; i++) {
+			if (modelLines.get(i).isInvalid)
+				return true;
+		}
+		return false;
+	}
+}
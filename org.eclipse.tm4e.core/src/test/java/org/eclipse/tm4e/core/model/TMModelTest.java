@@ -12,12 +12,85 @@
 import static org.eclipse.tm4e.core.registry.IGrammarSource.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.eclipse.tm4e.core.Data;
+import org.eclipse.tm4e.core.grammar.IGrammar;
 import org.eclipse.tm4e.core.registry.Registry;
 import org.junit.jupiter.api.Test;
 
 class TMModelTest {
 
+	private static AbstractModelLines createModelLines(final List<String> lines) {
+		final var modelLines = new AbstractModelLines() {
+			@Override
+			public String getLineText(final int lineIndex) throws Exception {
+				return lines.get(lineIndex);
+			}
+		};
+		modelLines.addLines(0, lines.size());
+		return modelLines;
+	}
+
+	/**
+	 * @return the lines of raytracer.ts repeated until the given number of lines is reached
+	 */
+	private static List<String> loadRaytracerLines(final int minLines) throws IOException {
+		final List<String> lines = new ArrayList<>();
+		try (var reader = new BufferedReader(new InputStreamReader(Data.class.getResourceAsStream("raytracer.ts"),
+			StandardCharsets.UTF_8))) {
+			final var fileLines = reader.lines().toList();
+			while (lines.size() < minLines) {
+				lines.addAll(fileLines);
+			}
+		}
+		return lines;
+	}
+
+	/**
+	 * @return the tokens of each line as string, tokenized sequentially
+	 */
+	private static List<String> expectedTokens(final IGrammar grammar, final List<String> lines) {
+		final var tokenizer = new TMTokenization(grammar);
+		final var expectedTokens = new ArrayList<String>();
+		var state = tokenizer.getInitialState();
+		for (final var line : lines) {
+			final var result = tokenizer.tokenize(line, state);
+			expectedTokens.add(result.tokens.toString());
+			state = result.endState;
+		}
+		return expectedTokens;
+	}
+
+	/**
+	 * Waits until all lines are up-to-date and have the expected tokens. Speculatively tokenized lines may be
+	 * corrected after all lines were marked as up-to-date.
+	 */
+	private static void awaitTokens(final TMModel tmModel, final AbstractModelLines modelLines,
+		final List<String> expectedTokens) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 30_000;
+		for (int i = 0; i < expectedTokens.size(); i++) {
+			while (modelLines.get(i).isInvalid
+				|| !expectedTokens.get(i).equals(String.valueOf(tmModel.getLineTokens(i)))) {
+				assertTrue(System.currentTimeMillis() < deadline, "Line " + i + " is not tokenized correctly");
+				Thread.sleep(10);
+			}
+		}
+	}
+
 	@Test
 	void testTokenizeWithTimeout() throws InterruptedException {
 		final var grammar = new Registry().addGrammar(fromResource(Data.class, "TypeScript.tmLanguage.json"));
@@ -28,36 +101,242 @@ function addNumbers(a: number, b: number) { // 1
 				}                                           // 3
 				const sum = addNumbers(10, 15);             // 4
 				console.log('Sum is: ' + sum);              // 5
-			""".split("\\r?\\n");
-		assertEquals(5, lines.length);
+			""".lines().toList();
+		assertEquals(5, lines.size());
 
-		final var modelLines = new AbstractModelLines() {
-			@Override
-			public String getLineText(final int lineIndex) throws Exception {
-				return lines[lineIndex];
+		final var modelLines = createModelLines(lines);
+
+		final var tmModel = new TMModel(modelLines);
+		try {
+			tmModel.setGrammar(grammar);
+
+			for (int i = 0; i < lines.size(); i++) {
+				assertTrue(modelLines.get(i).isInvalid, "Line " + i + " is expected to be outdated");
 			}
-		};
 
-		modelLines.addLines(0, lines.length);
+			// adding a listener will start the background tokenization
+			tmModel.addModelTokensChangedListener(event -> {
+			});
+
+			Thread.sleep(2000);
+			for (int i = 0; i < lines.size(); i++) {
+				assertFalse(modelLines.get(i).isInvalid, "Line " + i + " is expected to be up-to-date");
+			}
+		} finally {
+			tmModel.dispose();
+		}
+	}
+
+	@Test
+	void testTokenizeWithSharedExecutor() throws Exception {
+		final var grammar = new Registry().addGrammar(fromResource(Data.class, "TypeScript.tmLanguage.json"));
+
+		final var lines = """
+				function addNumbers(a: number, b: number) {
+				    return a + b;
+				}
+			""".lines().toList();
+
+		// a single thread executor that runs the queued tasks of models with a higher priority first
+		final var executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new PriorityBlockingQueue<>());
+		final var modelLines1 = createModelLines(lines);
+		final var modelLines2 = createModelLines(lines);
+
+		final var tmModel1 = new TMModel(modelLines1, executor);
+		final var tmModel2 = new TMModel(modelLines2, executor);
+		final var releaseExecutor = new CountDownLatch(1);
+		try {
+			// block the executor until the tasks of both models are queued
+			executor.execute(() -> {
+				try {
+					releaseExecutor.await();
+				} catch (final InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			});
+
+			final var modelsInEventOrder = new CopyOnWriteArrayList<ITMModel>();
+			tmModel1.setGrammar(grammar);
+			tmModel2.setGrammar(grammar);
+			tmModel2.setTokenizationPriority(ITMModel.TokenizationPriority.HIGH);
+			tmModel1.addModelTokensChangedListener(event -> modelsInEventOrder.add(event.model));
+			tmModel2.addModelTokensChangedListener(event -> modelsInEventOrder.add(event.model));
+			assertEquals(2, executor.getQueue().size());
+			releaseExecutor.countDown();
+
+			final long deadline = System.currentTimeMillis() + 10_000;
+			while (!modelsInEventOrder.contains(tmModel1) || !modelsInEventOrder.contains(tmModel2)) {
+				assertTrue(System.currentTimeMillis() < deadline, "Models were not tokenized");
+				Thread.sleep(10);
+			}
+			// the model with the higher priority is tokenized first although its task was queued last
+			assertSame(tmModel2, modelsInEventOrder.get(0));
+			for (int i = 0; i < lines.size(); i++) {
+				assertFalse(modelLines1.get(i).isInvalid, "Line " + i + " of model 1 is expected to be up-to-date");
+				assertFalse(modelLines2.get(i).isInvalid, "Line " + i + " of model 2 is expected to be up-to-date");
+			}
+		} finally {
+			releaseExecutor.countDown();
+			tmModel1.dispose();
+			tmModel2.dispose();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testLineStatesAreShared() throws InterruptedException {
+		final var grammar = new Registry().addGrammar(fromResource(Data.class, "TypeScript.tmLanguage.json"));
+
+		final var lines = """
+				function foo() {
+				    return 1;
+				}
+				function bar() {
+				    return 2;
+				}
+			""".lines().toList();
+
+		final var modelLines = createModelLines(lines);
 
 		final var tmModel = new TMModel(modelLines);
 		try {
 			tmModel.setGrammar(grammar);
+			tmModel.addModelTokensChangedListener(event -> {
+			});
 
-			for (int i = 0; i < lines.length; i++) {
-				assertTrue(modelLines.get(i).isInvalid, "Line " + i + " is expected to be outdated");
+			Thread.sleep(2000);
+			for (int i = 0; i < lines.size(); i++) {
+				assertFalse(modelLines.get(i).isInvalid, "Line " + i + " is expected to be up-to-date");
 			}
+			// the function bodies are tokenized independently but result in structurally equal states
+			assertSame(modelLines.get(1).startState, modelLines.get(4).startState);
+			assertSame(modelLines.get(2).startState, modelLines.get(5).startState);
+		} finally {
+			tmModel.dispose();
+		}
+	}
+
+	@Test
+	void testEncodedTokenFormat() throws InterruptedException {
+		final var grammar = new Registry().addGrammar(fromResource(Data.class, "TypeScript.tmLanguage.json"));
+
+		final var lines = """
+				function addNumbers(a: number, b: number) {
+				    return a + b;
+				}
+			""".lines().toList();
+
+		final var modelLines = createModelLines(lines);
 
-			// adding a listener will spawn the TokenizerThread
+		final var executor = Executors.newSingleThreadExecutor();
+		final var tmModel = new TMModel(modelLines, executor, ITMModel.TokenFormat.ENCODED);
+		try {
+			tmModel.setGrammar(grammar);
 			tmModel.addModelTokensChangedListener(event -> {
 			});
 
 			Thread.sleep(2000);
-			for (int i = 0; i < lines.length; i++) {
+			var state = grammar.tokenizeLine2(lines.get(0)).getRuleStack();
+			assertArrayEquals(grammar.tokenizeLine2(lines.get(0)).getTokens(), tmModel.getLineEncodedTokens(0));
+			for (int i = 1; i < lines.size(); i++) {
+				final var expected = grammar.tokenizeLine2(lines.get(i), state, null);
 				assertFalse(modelLines.get(i).isInvalid, "Line " + i + " is expected to be up-to-date");
+				assertArrayEquals(expected.getTokens(), tmModel.getLineEncodedTokens(i));
+				state = expected.getRuleStack();
 			}
+			assertThrows(IllegalStateException.class, () -> tmModel.getLineTokens(0));
+		} finally {
+			tmModel.dispose();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testTokenizeLargeDocument() throws Exception {
+		final var grammar = new Registry().addGrammar(fromResource(Data.class, "TypeScript.tmLanguage.json"));
+
+		final var lines = loadRaytracerLines(10_000);
+		final var modelLines = createModelLines(lines);
+
+		// the lines are split into as many chunks as the executor has threads, independent of the available cores
+		final var executor = Executors.newFixedThreadPool(4);
+		final var tmModel = new TMModel(modelLines, executor);
+		try {
+			final var expectedTokens = expectedTokens(grammar, lines);
+
+			final IModelTokensChangedListener listener = event -> {
+			};
+			tmModel.setGrammar(grammar);
+			tmModel.addModelTokensChangedListener(listener);
+
+			awaitTokens(tmModel, modelLines, expectedTokens);
+			assertTrue(tmModel.getParallelTokenizationCount() > 0, "Lines are expected to be tokenized in parallel");
+
+			// the lines between a modified line and an appended line are still up-to-date, so they are not
+			// tokenized again in parallel
+			final int parallelTokenizationCount = tmModel.getParallelTokenizationCount();
+			tmModel.removeModelTokensChangedListener(listener);
+			lines.add("const x = 1;");
+			modelLines.addLines(lines.size() - 1, 1);
+			modelLines.updateLine(0);
+			tmModel.addModelTokensChangedListener(listener);
+			awaitTokens(tmModel, modelLines, expectedTokens(grammar, lines));
+			assertEquals(parallelTokenizationCount, tmModel.getParallelTokenizationCount());
+		} finally {
+			tmModel.dispose();
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void testTokenizeVisibleRangeFirst() throws Exception {
+		final var grammar = new Registry().addGrammar(fromResource(Data.class, "TypeScript.tmLanguage.json"));
+
+		final var lines = loadRaytracerLines(5_000);
+		final var modelLines = createModelLines(lines);
+
+		final var executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new PriorityBlockingQueue<>());
+		final var tmModel = new TMModel(modelLines, executor);
+		final var releaseExecutor = new CountDownLatch(1);
+		try {
+			final var expectedTokens = expectedTokens(grammar, lines);
+
+			// block the executor until the visible range is set
+			executor.execute(() -> {
+				try {
+					releaseExecutor.await();
+				} catch (final InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			});
+
+			final var firstEvent = new CompletableFuture<ModelTokensChangedEvent>();
+			final var isLine0InvalidOnFirstEvent = new AtomicBoolean();
+			tmModel.setGrammar(grammar);
+			tmModel.addModelTokensChangedListener(event -> {
+				if (!firstEvent.isDone()) {
+					isLine0InvalidOnFirstEvent.set(modelLines.get(0).isInvalid);
+					firstEvent.complete(event);
+				}
+			});
+			final int fromLineIndex = lines.size() - 40;
+			final int toLineIndex = lines.size() - 20;
+			tmModel.setVisibleRange(fromLineIndex, toLineIndex);
+			releaseExecutor.countDown();
+
+			// the visible lines are tokenized speculatively before the tokenization from line 0 reaches them
+			final var event = firstEvent.get(10, TimeUnit.SECONDS);
+			assertTrue(isLine0InvalidOnFirstEvent.get(), "Line 0 is expected to be tokenized after the visible range");
+			assertEquals(1, event.ranges.size());
+			assertTrue(event.ranges.get(0).fromLineNumber <= fromLineIndex + 1);
+			assertTrue(event.ranges.get(0).toLineNumber >= toLineIndex + 1);
+
+			// speculatively tokenized lines are corrected once their exact start state is known
+			awaitTokens(tmModel, modelLines, expectedTokens);
 		} finally {
+			releaseExecutor.countDown();
 			tmModel.dispose();
+			executor.shutdown();
 		}
 	}
 }
@@ -0,0 +1,51 @@
+/**
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.eclipse.tm4e.core.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TokenTypeDictionaryTest {
+
+	@Test
+	void testEncodeDecode() {
+		final var dictionary = new TokenTypeDictionary();
+		final var tokens = List.of(
+			new TMToken(0, "keyword.java"),
+			new TMToken(6, ""),
+			new TMToken(7, "keyword.java"));
+
+		final int[] encoded = dictionary.encode(tokens);
+		assertArrayEquals(new int[] { 0, 0, 6, 1, 7, 0 }, encoded);
+		assertSame(TokenTypeDictionary.NO_TOKENS, dictionary.encode(List.of()));
+
+		final var decoded = dictionary.decode(encoded);
+		assertEquals(3, decoded.size());
+		assertEquals(tokens.toString(), decoded.toString());
+		assertEquals(7, decoded.get(2).startIndex);
+		assertSame(decoded.get(0).type, decoded.get(2).type);
+		assertThrows(IndexOutOfBoundsException.class, () -> decoded.get(3));
+	}
+
+	@Test
+	void testManyTypes() {
+		final var dictionary = new TokenTypeDictionary();
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, dictionary.getTypeId("type" + i));
+		}
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i, dictionary.getTypeId("type" + i));
+			assertEquals("type" + i, dictionary.getType(i));
+		}
+	}
+}
@@ -16,6 +16,7 @@
 import static org.eclipse.tm4e.core.internal.utils.NullSafetyHelper.*;
 
 import java.lang.reflect.Field;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -39,6 +40,7 @@
 import org.eclipse.jface.text.ITextOperationTarget;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.ITextViewerExtension5;
+import org.eclipse.jface.text.IViewportListener;
 import org.eclipse.jface.text.PaintManager;
 import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextAttribute;
@@ -54,13 +56,17 @@
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.StyleRange;
 import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.events.FocusEvent;
+import org.eclipse.swt.events.FocusListener;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.tm4e.core.TMException;
 import org.eclipse.tm4e.core.grammar.IGrammar;
 import org.eclipse.tm4e.core.model.IModelTokensChangedListener;
 import org.eclipse.tm4e.core.model.ITMModel;
+import org.eclipse.tm4e.core.model.ITMModel.TokenizationPriority;
 import org.eclipse.tm4e.core.model.ModelTokensChangedEvent;
+import org.eclipse.tm4e.core.model.ModelTokensChangedEventCoalescer;
 import org.eclipse.tm4e.core.model.Range;
 import org.eclipse.tm4e.core.model.TMToken;
 import org.eclipse.tm4e.registry.TMEclipseRegistryPlugin;
@@ -90,6 +96,15 @@
  */
 public class TMPresentationReconciler implements IPresentationReconciler {
 
+	/** max time token changes are held back before they are colorized */
+	private static final Duration COLORIZE_MAX_LATENCY = Duration.ofMillis(30);
+
+	/** number of changed lines that are colorized without further delay */
+	private static final int COLORIZE_MAX_BATCH_SIZE = 500;
+
+	/** max time token changes are held back before the text markers are updated */
+	private static final Duration MARKERS_MAX_LATENCY = Duration.ofMillis(500);
+
 	/** The default text attribute if none is returned as data by the current token. */
 	private final Token defaultToken;
 
@@ -180,7 +195,23 @@ void preferenceThemeChange(@Nullable final String eclipseThemeId, final IThemeMa
 	/**
 	 * Internal listener class.
 	 */
-	private final class InternalListener implements ITextInputListener, IModelTokensChangedListener, ITextListener {
+	private final class InternalListener
+			implements ITextInputListener, IModelTokensChangedListener, ITextListener, FocusListener,
+			IViewportListener {
+
+		/**
+		 * merges the token changes of the model until the UI thread is ready to colorize them, so that at most one
+		 * colorize runnable is queued at a time
+		 */
+		private final ModelTokensChangedEventCoalescer colorizeCoalescer = new ModelTokensChangedEventCoalescer(
+				COLORIZE_MAX_LATENCY, COLORIZE_MAX_BATCH_SIZE, this::scheduleColorize);
+
+		/**
+		 * merges the token changes of the model, so that the text markers are not updated after each processing burst
+		 * of the tokenizer
+		 */
+		private final ModelTokensChangedEventCoalescer markersCoalescer = new ModelTokensChangedEventCoalescer(
+				MARKERS_MAX_LATENCY, Integer.MAX_VALUE, (IModelTokensChangedListener) MarkerUtils::updateTextMarkers);
 
 		void fireInstall(final ITextViewer viewer, final IDocument document) {
 			synchronized (listeners) {
@@ -206,6 +237,7 @@ public void inputDocumentAboutToBeChanged(@Nullable final IDocument oldDoc, @Nul
 			final var viewer = TMPresentationReconciler.this.viewer;
 			if (viewer != null) {
 				viewer.removeTextListener(this);
+				viewer.removeViewportListener(this);
 			}
 			TMModelManager.INSTANCE.disconnect(oldDoc);
 			fireUninstall();
@@ -224,6 +256,7 @@ public void inputDocumentChanged(@Nullable final IDocument oldDoc, @Nullable fin
 			fireInstall(viewer, newDoc);
 			try {
 				viewer.addTextListener(this);
+				viewer.addViewportListener(this);
 				// Update the grammar
 				final IGrammar localGrammar = findGrammar(newDoc);
 
@@ -256,6 +289,7 @@ public void inputDocumentChanged(@Nullable final IDocument oldDoc, @Nullable fin
 
 						// Add model listener
 						docModel.addModelTokensChangedListener(this);
+						docModel.setVisibleRange(viewer.getTopIndex(), viewer.getBottomIndex());
 					}
 				} else {
 					TMPresentationReconciler.this.enabled = false;
@@ -266,6 +300,47 @@ public void inputDocumentChanged(@Nullable final IDocument oldDoc, @Nullable fin
 			}
 		}
 
+		@Override
+		public void viewportChanged(final int verticalOffset) {
+			updateVisibleRange();
+		}
+
+		/**
+		 * Lets the model tokenize the lines visible in the viewer first.
+		 */
+		private void updateVisibleRange() {
+			final var viewer = TMPresentationReconciler.this.viewer;
+			if (viewer == null || !enabled)
+				return;
+			final IDocument doc = viewer.getDocument();
+			if (doc != null) {
+				TMModelManager.INSTANCE.connect(doc).setVisibleRange(viewer.getTopIndex(), viewer.getBottomIndex());
+			}
+		}
+
+		@Override
+		public void focusGained(@Nullable final FocusEvent e) {
+			setTokenizationPriority(TokenizationPriority.HIGH);
+		}
+
+		@Override
+		public void focusLost(@Nullable final FocusEvent e) {
+			setTokenizationPriority(TokenizationPriority.NORMAL);
+		}
+
+		/**
+		 * Lets the background tokenization of the document of the focused editor take precedence over other documents.
+		 */
+		private void setTokenizationPriority(final TokenizationPriority priority) {
+			final var viewer = TMPresentationReconciler.this.viewer;
+			if (viewer == null || !enabled)
+				return;
+			final IDocument doc = viewer.getDocument();
+			if (doc != null) {
+				TMModelManager.INSTANCE.connect(doc).setTokenizationPriority(priority);
+			}
+		}
+
 		/**
 		 * Finds a grammar for the given document.
 		 *
@@ -296,6 +371,7 @@ public void textChanged(final @Nullable TextEvent event) {
 
 			// changed text: propagate previous style, which will be overridden later asynchronously by TM
 			if (event.getDocumentEvent() != null) {
+				updateVisibleRange();
 				final int diff = event.getText().length() - event.getLength();
 				if (diff == 0 || event.getOffset() <= 0) {
 					return;
@@ -321,8 +397,8 @@ public void textChanged(final @Nullable TextEvent event) {
 				final var docModel = TMModelManager.INSTANCE.connect(doc);
 
 				// It's possible that there are two or more SourceViewers opened for the same document,
-				// so when one of them is closed the existing TMModel is also "closed" and its TokenizerThread
-				// is interrupted and terminated.
+				// so when one of them is closed the existing TMModel is also "closed" and its background
+				// tokenization is stopped.
 				// In this case, in order to let the others Source Viewers to continue working a new
 				// TMModel object is to be created for the document, so it should be initialized
 				// with the existing grammar as well as new ModelTokenListener is to be added
@@ -379,15 +455,23 @@ IRegion widgetRegion2ModelRegion(final TextEvent event) {
 
 		@Override
 		public void modelTokensChanged(final ModelTokensChangedEvent event) {
+			colorizeCoalescer.modelTokensChanged(event);
+			markersCoalescer.modelTokensChanged(event);
+		}
+
+		private void scheduleColorize() {
 			final var viewer = TMPresentationReconciler.this.viewer;
-			if (viewer != null) {
-				final Control control = viewer.getTextWidget();
-				if (control != null) {
-					control.getDisplay().asyncExec(() -> colorize(event));
-				}
+			final Control control = viewer == null ? null : viewer.getTextWidget();
+			if (control == null || control.isDisposed()) {
+				colorizeCoalescer.pollChanges(); // discard the changes
+				return;
 			}
-
-			MarkerUtils.updateTextMarkers(event);
+			control.getDisplay().asyncExec(() -> {
+				final var event = colorizeCoalescer.pollChanges();
+				if (event != null) {
+					colorize(event);
+				}
+			});
 		}
 
 		void colorize(final ModelTokensChangedEvent event) {
@@ -484,6 +568,7 @@ public void setTheme(final ITokenProvider newTheme) {
 	public void install(@Nullable ITextViewer viewer) {
 		viewer = this.viewer = castNonNull(viewer);
 		viewer.addTextInputListener(internalListener);
+		viewer.getTextWidget().addFocusListener(internalListener);
 
 		final IDocument document = viewer.getDocument();
 		if (document != null) {
@@ -497,6 +582,10 @@ public void install(@Nullable ITextViewer viewer) {
 	public void uninstall() {
 		final var viewer = castNonNull(this.viewer);
 		viewer.removeTextInputListener(internalListener);
+		final StyledText textWidget = viewer.getTextWidget();
+		if (textWidget != null && !textWidget.isDisposed()) {
+			textWidget.removeFocusListener(internalListener);
+		}
 		// Ensure we uninstall all listeners
 		internalListener.inputDocumentAboutToBeChanged(viewer.getDocument(), null);
 		final var themeChangeListener = this.themeChangeListener;